@@ -20,24 +20,32 @@ import java.util.ArrayList;
 
 import android.content.Context;
 import android.database.DataSetObserver;
+import android.graphics.Canvas;
 import android.graphics.PointF;
+import android.os.Build;
 import android.os.Handler;
+import android.os.Looper;
+import android.os.MessageQueue;
 import android.os.Parcel;
 import android.os.Parcelable;
+import android.os.SystemClock;
 import android.util.AttributeSet;
 import android.util.Log;
-import android.util.SparseArray;
 import android.view.MotionEvent;
 import android.view.View;
 import android.view.ViewConfiguration;
 import android.view.ViewGroup;
+import android.view.animation.Animation;
+import android.view.animation.Transformation;
 import android.widget.Adapter;
 import android.widget.AdapterView;
 import android.widget.FrameLayout;
 
 import com.nineoldandroids.animation.Animator;
-import com.nineoldandroids.animation.AnimatorInflater;
 import com.nineoldandroids.animation.ObjectAnimator;
+import com.nineoldandroids.animation.ValueAnimator;
+import com.nineoldandroids.view.ViewHelper;
+import com.nineoldandroids.view.animation.AnimatorProxy;
 
 /**
  * Base class for a <code>AdapterView</code> that will perform animations
@@ -63,9 +71,16 @@ public abstract class AdapterViewAnimator extends AdapterView<Adapter> implement
     private static final String TAG = "com.andrearichiardi.android.widget.AdapterViewAnimator";
 
     /**
-     * For reflectively obtaining AdapterView's access
+     * For obtaining AdapterView's access, see {@link #createAdapterViewBridge()}
      */
     AdapterViewBridge mAdapterViewRefl;
+
+    /**
+     * The focusable states requested by the user, AdapterView keeps them private.
+     * They are not initialized on purpose, the super constructor can already set them.
+     */
+    boolean mDesiredFocusableState;
+    boolean mDesiredFocusableInTouchModeState;
     
     /**
      * The index of the current child, which appears anywhere from the beginning
@@ -92,21 +107,46 @@ public abstract class AdapterViewAnimator extends AdapterView<Adapter> implement
 
     /**
      * The number of views that the {@link AdapterViewAnimator} keeps as children at any
-     * given time (not counting views that are pending removal, see {@link #mPreviousViews}).
+     * given time (not counting views that are pending removal, see {@link #removePreviousViews()}).
      */
     int mMaxNumActiveViews = 1;
 
     /**
-     * Map of the children of the {@link AdapterViewAnimator}.
+     * Map of the children of the {@link AdapterViewAnimator}, keyed by their index modulo
+     * {@link #getWindowSize()}. The views pending removal are the retired entries.
      */
-    // Using SparseArray (The Android compiler says it's better.
-    //HashMap<Integer, ViewAndMetaData> mViewsMap = new HashMap<Integer, ViewAndMetaData>();
-    SparseArray<ViewAndMetaData> mViewsMap = new SparseArray<ViewAndMetaData>();
-    
+    WindowStore<ViewAndMetaData> mViewsMap = new WindowStore<ViewAndMetaData>();
+
+    /**
+     * Scrap views that can be given back to the adapter as <code>convertView</code>
+     */
+    RecycleBin mRecycler;
+
+    /**
+     * True if this animator is counted by its {@link SharedViewPool}, see
+     * {@link #registerWithSharedPool()}
+     */
+    private boolean mRegisteredWithSharedPool;
+
+    /**
+     * Item key to position in {@link #mViewsMap}, used by {@link #remapWindow(WindowRemapper)}
+     */
+    final LongIntMap mItemKeyToIndex = new LongIntMap();
+
+    final ItemIdRemapper mItemIdRemapper = new ItemIdRemapper();
+    final DiffResultRemapper mDiffResultRemapper = new DiffResultRemapper();
+
+    /**
+     * The map being built by {@link #remapWindow(WindowRemapper)}, swapped with {@link #mViewsMap}
+     */
+    WindowStore<ViewAndMetaData> mRemappedViewsMap = new WindowStore<ViewAndMetaData>();
+
     /**
-     * List of views pending removal from the {@link AdapterViewAnimator}
+     * The entries whose view has been removed, linked through {@link ViewAndMetaData#nextInPool}.
+     * The pool never holds more entries than the window and the views pending removal did
+     * at their peak, so a steady flip reuses the entries it has.
      */
-    ArrayList<Integer> mPreviousViews;
+    private ViewAndMetaData mMetaDataPool;
 
     /**
      * The index, relative to the adapter, of the beginning of the window of views
@@ -150,6 +190,23 @@ public abstract class AdapterViewAnimator extends AdapterView<Adapter> implement
      */
     boolean mLoopViews = true;
 
+    /**
+     * Specifies if the adapter views are wrapped in a {@link FrameLayout} or
+     * attached directly as children, see {@link #setWrapAdapterViews(boolean)}
+     */
+    boolean mWrapAdapterViews = true;
+
+    /**
+     * Specifies if the indexes of the window showing the same adapter position share one
+     * adapter view, see {@link #setShareDuplicateViews(boolean)}
+     */
+    boolean mShareDuplicateViews = false;
+
+    /**
+     * Mirrors that left the window, reused by {@link #createMirror(ViewAndMetaData, int)}
+     */
+    private final ArrayList<MirrorView> mMirrorScrap = new ArrayList<MirrorView>();
+
     /**
      * The width and height of some child, used as a size reference in-case our
      * dimensions are unspecified by the parent.
@@ -158,11 +215,67 @@ public abstract class AdapterViewAnimator extends AdapterView<Adapter> implement
     int mReferenceChildHeight = -1;
 
     /**
-     * In and out animations.
+     * In and out animations, templates of the animators started by {@link #mAnimators}.
      */
     Animator mInAnimation;
     Animator mOutAnimation;
 
+    /**
+     * Runs a clone of the in and out animations per view, see {@link AnimatorManager}
+     */
+    final AnimatorManager mAnimators = new AnimatorManager();
+
+    /**
+     * In and out transitions run by {@link #mTransitionEngine}, taking over the in and out
+     * animations when set
+     */
+    FrameTransition mInTransition;
+    FrameTransition mOutTransition;
+    final TransitionEngine mTransitionEngine = new TransitionEngine();
+
+    /**
+     * Animates the children changing relative index, see {@link #setAnimateMoves(boolean)}
+     */
+    boolean mAnimateMoves = false;
+    final WindowMoveAnimator mMoves = new WindowMoveAnimator(DEFAULT_ANIMATION_DURATION);
+
+    /**
+     * Draws the frames in transition from a snapshot, see {@link #setSnapshotTransitions(boolean)}
+     */
+    boolean mSnapshotTransitions = false;
+    final SnapshotBitmapPool mSnapshotPool = new SnapshotBitmapPool();
+
+    /**
+     * The children not drawn in the current frame, see {@link #computeOcclusion()}
+     */
+    final ChildOcclusion mOcclusion = new ChildOcclusion();
+
+    /**
+     * False before API 7, where children cannot tell whether they are opaque and are all drawn
+     */
+    static final boolean OCCLUSION_SUPPORTED = isOcclusionSupported();
+
+    /**
+     * Number of children drawn in the current and in the last frame
+     */
+    private int mDrawnChildCount;
+    private int mLastDrawnChildCount;
+
+    /**
+     * Scratch space of {@link #reorderChildren()}, the views of the window in window order
+     */
+    private View[] mWindowOrder = new View[4];
+
+    /**
+     * Gives the views their live content back once their transition is done
+     */
+    private final TransitionListener mTransitionEndListener = new TransitionListener() {
+        @Override
+        public void onTransitionEnd(View target) {
+            clearSnapshot(target);
+        }
+    };
+
     /**
      * Current touch state.
      */
@@ -177,8 +290,104 @@ public abstract class AdapterViewAnimator extends AdapterView<Adapter> implement
 
     private Runnable mPendingCheckForTap;
 
+    /**
+     * The data change pass, reused every time.
+     */
+    private final Runnable mHandleDataChanged = new HandleDataChanged();
+
+    /**
+     * True if {@link #mHandleDataChanged} has been posted and did not run yet.
+     */
+    boolean mDataChangedPending = false;
+
+    /**
+     * Number of notifications received since the last data change pass.
+     */
+    int mPendingDataChangeCount = 0;
+
+    /**
+     * Number of notifications that have been merged into a pass started by a previous one.
+     */
+    int mCoalescedDataChangeCount = 0;
+
     private static final int DEFAULT_ANIMATION_DURATION = 200;
 
+    /**
+     * Templates of the default in and out animations, every animator gets a clone of them.
+     */
+    private static final ObjectAnimator DEFAULT_IN_ANIMATION = createFadeAnimation(0.0f, 1.0f);
+    private static final ObjectAnimator DEFAULT_OUT_ANIMATION = createFadeAnimation(1.0f, 0.0f);
+
+    /**
+     * Time in milliseconds that can be spent materializing the window in a frame,
+     * 0 to materialize it all at once, see {@link #setMaterializationBudget(int)}
+     */
+    int mMaterializationBudget = 0;
+
+    final MaterializeWindow mMaterializeWindow = new MaterializeWindow();
+
+    /**
+     * Number of items after the window, and optionally before it, whose view is prepared
+     * in idle time, see {@link #setOffscreenPageLimit(int, boolean)}
+     */
+    int mOffscreenPageLimit = 0;
+    boolean mPrefetchPrevious = false;
+
+    /**
+     * The entries prepared offscreen, detached and measured, relative index -1
+     */
+    final ArrayList<ViewAndMetaData> mPrefetched = new ArrayList<ViewAndMetaData>();
+
+    final Prefetcher mPrefetcher = new Prefetcher();
+
+    /**
+     * True if {@link #mPrefetcher} is registered with the message queue.
+     */
+    boolean mPrefetchScheduled = false;
+
+    /**
+     * Default number of upcoming positions given to a {@link PrefetchingAdapter}
+     */
+    static final int DEFAULT_DATA_PREFETCH_DISTANCE = 3;
+
+    int mDataPrefetchDistance = DEFAULT_DATA_PREFETCH_DISTANCE;
+    int[] mDataPrefetchPositions = new int[DEFAULT_DATA_PREFETCH_DISTANCE];
+
+    /**
+     * What the {@link PrefetchingAdapter} has been told last, not to repeat it.
+     */
+    int mLastDataPrefetchCount;
+    int mLastDataPrefetchFirst;
+    int mLastDataPrefetchDirection;
+
+    /**
+     * 1 if the last flip went forward, -1 if it went backward.
+     */
+    int mFlipDirection = 1;
+
+    /**
+     * Whether {@link #showNext()} and {@link #showPrevious()} are coalesced,
+     * see {@link #setCoalesceFlips(boolean)}
+     */
+    boolean mCoalesceFlips = false;
+
+    /**
+     * True if {@link #mFlushFlips} has been posted and did not run yet.
+     */
+    boolean mFlipPending = false;
+
+    /**
+     * The unbounded position the coalesced flips lead to.
+     */
+    long mPendingFlipTarget;
+
+    final FlushFlips mFlushFlips = new FlushFlips();
+
+    /**
+     * True if {@link #mMaterializeWindow} has been posted and did not run yet.
+     */
+    boolean mMaterializationScheduled = false;
+
     public AdapterViewAnimator(Context context) {
         this(context, null);
     }
@@ -199,7 +408,7 @@ public abstract class AdapterViewAnimator extends AdapterView<Adapter> implement
     public AdapterViewAnimator(Context context, AttributeSet attrs, int defStyleAttr) {
         super(context, attrs, defStyleAttr);
 
-        int count = attrs.getAttributeCount();
+        int count = attrs != null ? attrs.getAttributeCount() : 0;
         for(int i = 0; i < count; i++) {
             String attrName = attrs.getAttributeName(i);
             int attrRes = attrs.getAttributeNameResource(i);
@@ -234,9 +443,30 @@ public abstract class AdapterViewAnimator extends AdapterView<Adapter> implement
      * Initialize this {@link AdapterViewAnimator}
      */
     private void initViewAnimator() {
-        mPreviousViews = new ArrayList<Integer>();
+        // As in the original AdapterViewAnimator, fade in/out when no animation is given
+        if (mInAnimation == null) {
+            setInAnimation(getDefaultInAnimation());
+        }
+        if (mOutAnimation == null) {
+            setOutAnimation(getDefaultOutAnimation());
+        }
+        mRecycler = new RecycleBin();
+        mAnimators.setTransitionListener(mTransitionEndListener);
+        mTransitionEngine.setTransitionListener(mTransitionEndListener);
         // AR
-        mAdapterViewRefl = new AdapterViewBridgeImpl1(this);
+        mAdapterViewRefl = createAdapterViewBridge();
+    }
+
+    /**
+     * Creates the bridge holding the AdapterView state. By default the state lives in plain
+     * fields, see {@link AdapterViewBridgeImpl2}, so that no reflection happens on the layout path.
+     * Subclasses depending on the private fields of AdapterView can fall back to the reflective
+     * {@link AdapterViewBridgeImpl1}.
+     *
+     * @return The bridge used by this animator.
+     */
+    AdapterViewBridge createAdapterViewBridge() {
+        return new AdapterViewBridgeImpl2(this);
     }
 
     class ViewAndMetaData {
@@ -244,13 +474,80 @@ public abstract class AdapterViewAnimator extends AdapterView<Adapter> implement
         int relativeIndex;
         int adapterPosition;
         long itemId;
+        int viewType;
+
+        /**
+         * True if view is the frame wrapping the adapter view, false if it is
+         * the adapter view itself.
+         */
+        boolean wrapped = true;
+
+        /**
+         * True if the frame holds a {@link MirrorView} of the adapter view of another entry
+         * instead of its own adapter view.
+         */
+        boolean mirrored;
+
+        /**
+         * Scratch flag of {@link AdapterViewAnimator#remapWindow(WindowRemapper)}
+         */
+        boolean retained;
+
+        /**
+         * Next entry in {@link AdapterViewAnimator#mMetaDataPool}
+         */
+        ViewAndMetaData nextInPool;
+
+        ViewAndMetaData(View view, int relativeIndex, int adapterPosition, long itemId,
+                int viewType) {
+            set(view, relativeIndex, adapterPosition, itemId, viewType);
+        }
 
-        ViewAndMetaData(View view, int relativeIndex, int adapterPosition, long itemId) {
+        void set(View view, int relativeIndex, int adapterPosition, long itemId, int viewType) {
             this.view = view;
             this.relativeIndex = relativeIndex;
             this.adapterPosition = adapterPosition;
             this.itemId = itemId;
+            this.viewType = viewType;
+            this.wrapped = true;
+            this.mirrored = false;
+            this.retained = false;
+        }
+
+        /**
+         * @return The view returned by the adapter, null if the frame is empty
+         */
+        View getAdapterView() {
+            if (!wrapped) {
+                return view;
+            }
+            final ViewGroup frame = (ViewGroup) view;
+            return frame.getChildCount() > 0 ? frame.getChildAt(0) : null;
+        }
+    }
+
+    /**
+     * @return A window entry from the pool, or a new one if the pool is empty.
+     */
+    ViewAndMetaData obtainMetaData(View view, int relativeIndex, int adapterPosition,
+            long itemId, int viewType) {
+        final ViewAndMetaData vm = mMetaDataPool;
+        if (vm == null) {
+            return new ViewAndMetaData(view, relativeIndex, adapterPosition, itemId, viewType);
         }
+        mMetaDataPool = vm.nextInPool;
+        vm.nextInPool = null;
+        vm.set(view, relativeIndex, adapterPosition, itemId, viewType);
+        return vm;
+    }
+
+    /**
+     * Gives a window entry back to the pool, once its view has been removed.
+     */
+    void releaseMetaData(ViewAndMetaData vm) {
+        vm.view = null;
+        vm.nextInPool = mMetaDataPool;
+        mMetaDataPool = vm;
     }
 
     /**
@@ -272,7 +569,8 @@ public abstract class AdapterViewAnimator extends AdapterView<Adapter> implement
         }
         mMaxNumActiveViews = numVisibleViews;
         mActiveOffset = activeOffset;
-        mPreviousViews.clear();
+        mRecycler.setMaxScrap(Math.max(RecycleBin.DEFAULT_MAX_SCRAP, numVisibleViews));
+        clearPrefetched();
         mViewsMap.clear();
         removeAllViewsInLayout();
         mCurrentWindowStart = 0;
@@ -291,22 +589,51 @@ public abstract class AdapterViewAnimator extends AdapterView<Adapter> implement
      */
     void transformViewForTransition(int fromIndex, int toIndex, View view, boolean animate) {
         if (fromIndex == -1) {
-            mInAnimation.setTarget(view);
-            mInAnimation.start();
+            startTransition(mInTransition, mInAnimation, view);
         } else if (toIndex == -1) {
-            mOutAnimation.setTarget(view);
-            mOutAnimation.start();
+            startTransition(mOutTransition, mOutAnimation, view);
+        }
+    }
+
+    /**
+     * Runs the frame transition on the view if there is one, the animation otherwise.
+     */
+    void startTransition(FrameTransition transition, Animator animation, View view) {
+        if (transition != null) {
+            mAnimators.cancel(view);
+            mTransitionEngine.start(transition, view);
+        } else {
+            mTransitionEngine.cancel(view);
+            mAnimators.start(animation, view);
+        }
+        // Also recomputes the occlusion, the view may uncover the ones behind it
+        invalidate();
+        // After starting, replacing a transition clears the snapshot of the previous one
+        if (mSnapshotTransitions && view instanceof TransitionFrame
+                && (transition != null || animation != null)) {
+            ((TransitionFrame) view).requestSnapshot(mSnapshotPool);
+        }
+    }
+
+    /**
+     * Draws the live content of a frame again, if it was drawing a snapshot.
+     */
+    static void clearSnapshot(View view) {
+        if (view instanceof TransitionFrame) {
+            ((TransitionFrame) view).clearSnapshot();
         }
     }
 
     ObjectAnimator getDefaultInAnimation() {
-        ObjectAnimator anim = ObjectAnimator.ofFloat(null, "alpha", 0.0f, 1.0f);
-        anim.setDuration(DEFAULT_ANIMATION_DURATION);
-        return anim;
+        return DEFAULT_IN_ANIMATION.clone();
     }
 
     ObjectAnimator getDefaultOutAnimation() {
-        ObjectAnimator anim = ObjectAnimator.ofFloat(null, "alpha", 1.0f, 0.0f);
+        return DEFAULT_OUT_ANIMATION.clone();
+    }
+
+    private static ObjectAnimator createFadeAnimation(float from, float to) {
+        ObjectAnimator anim = ObjectAnimator.ofFloat(null, "alpha", from, to);
         anim.setDuration(DEFAULT_ANIMATION_DURATION);
         return anim;
     }
@@ -321,7 +648,21 @@ public abstract class AdapterViewAnimator extends AdapterView<Adapter> implement
     }
 
     private void setDisplayedChild(int whichChild, boolean animate) {
+        setDisplayedChild(whichChild, animate, whichChild > mWhichChild ? 1
+                : whichChild < mWhichChild ? -1 : mFlipDirection);
+    }
+
+    /**
+     * @param direction 1 if the animator moves forward, -1 if it moves backward
+     */
+    private void setDisplayedChild(int whichChild, boolean animate, int direction) {
+        if (mFlipPending) {
+            // An explicit position wins over the flips waiting to be coalesced
+            mFlipPending = false;
+            removeCallbacks(mFlushFlips);
+        }
         if (mAdapter != null) {
+            mFlipDirection = direction;
             mWhichChild = whichChild;
             if (whichChild >= getWindowSize()) {
                 mWhichChild = mLoopViews ? 0 : getWindowSize() - 1;
@@ -361,24 +702,144 @@ public abstract class AdapterViewAnimator extends AdapterView<Adapter> implement
      * Manually shows the next child.
      */
     public void showNext() {
-        setDisplayedChild(mWhichChild + 1);
+        if (mCoalesceFlips) {
+            queueFlip(1);
+        } else {
+            setDisplayedChild(mWhichChild + 1);
+        }
     }
 
     /**
      * Manually shows the previous child.
      */
     public void showPrevious() {
-        setDisplayedChild(mWhichChild - 1);
+        if (mCoalesceFlips) {
+            queueFlip(-1);
+        } else {
+            setDisplayedChild(mWhichChild - 1);
+        }
+    }
+
+    /**
+     * Jumps to a position without going through the positions in between. Only the window
+     * around the target is materialized, the children that are not part of it are removed
+     * right away unless <code>animate</code> is true, in which case they leave with the
+     * out animation.
+     * <p>
+     * The position wraps around when the animator loops and is clamped to the adapter
+     * otherwise. Pending coalesced flips are dropped.
+     *
+     * @param position The position of the item to display
+     * @param animate Whether or not to use the in and out animations
+     */
+    public void seekTo(int position, boolean animate) {
+        if (mAdapter == null) return;
+        final int windowSize = getWindowSize();
+        if (windowSize == 0) return;
+
+        final int whichChild = mLoopViews ? modulo(position, windowSize)
+                : Math.max(0, Math.min(windowSize - 1, position));
+        final int direction = whichChild > mWhichChild ? 1
+                : whichChild < mWhichChild ? -1 : mFlipDirection;
+        setDisplayedChild(whichChild, animate, direction);
+        if (!animate) {
+            // Nothing to wait for, the children that left the window go now
+            removePreviousViews();
+        }
+    }
+
+    /**
+     * Moves the target of the coalesced flips, the transition happens later in one go.
+     */
+    void queueFlip(int delta) {
+        if (mAdapter == null) return;
+        if (!mFlipPending) {
+            mFlipPending = true;
+            mPendingFlipTarget = mWhichChild;
+            post(mFlushFlips);
+        }
+        mPendingFlipTarget += delta;
+    }
+
+    /**
+     * @return True if an in or an out animation is running.
+     */
+    boolean isTransitionRunning() {
+        return !mAnimators.isIdle() || mMoves.isRunning()
+                || mTransitionEngine.getRunningCount(SystemClock.uptimeMillis()) > 0;
+    }
+
+    /**
+     * @return The number of in and out animations running, each one on its own view.
+     */
+    public int getRunningAnimatorCount() {
+        return mAnimators.getRunningCount();
+    }
+
+    /**
+     * Shows the final target of the flips queued since the last transition, once the frame is
+     * over and the running animations have ended. The skipped positions are never obtained
+     * from the adapter.
+     */
+    final class FlushFlips implements Runnable {
+        @Override
+        public void run() {
+            if (!mFlipPending) return;
+            if (isTransitionRunning()) {
+                // Check again on the next frame
+                postDelayed(this, ValueAnimator.getFrameDelay());
+                return;
+            }
+            mFlipPending = false;
+            final long target = mPendingFlipTarget;
+            if (mAdapter == null || target == mWhichChild) return;
+
+            final int windowSize = getWindowSize();
+            final int whichChild = mLoopViews ? modulo(target, windowSize)
+                    : (int) Math.max(0, Math.min(windowSize - 1, target));
+            setDisplayedChild(whichChild, true, target > mWhichChild ? 1 : -1);
+        }
     }
 
     int modulo(int pos, int size) {
         if (size > 0) {
-            return (size + (pos % size)) % size;
+            // No (size + pos % size) % size here, it overflows for sizes above 2^30
+            final int r = pos % size;
+            return r < 0 ? r + size : r;
+        } else {
+            return 0;
+        }
+    }
+
+    /**
+     * Like {@link #modulo(int, int)}, for positions computed past the int range.
+     */
+    int modulo(long pos, int size) {
+        if (size > 0) {
+            final int r = (int) (pos % size);
+            return r < 0 ? r + size : r;
         } else {
             return 0;
         }
     }
 
+    /**
+     * Returns the unbounded start of the window around a child. When looping over a huge
+     * adapter, a window whose end would not fit in an int is moved back by a whole window
+     * size, which leaves both the keys of {@link #mViewsMap} and the adapter positions as
+     * they are, since the window size is a multiple of the item count.
+     *
+     * @param childIndex The index of the child, between 0 and {@link #getWindowSize()} excluded
+     * @return The index of the first child of the window, possibly negative.
+     */
+    int getWindowStartUnbounded(int childIndex) {
+        final int start = childIndex - mActiveOffset;
+        if (mLoopViews && (long) start + getNumActiveViews() - 1 > Integer.MAX_VALUE) {
+            return start - getWindowSize();
+        }
+        return start;
+    }
+
     /**
      * Get the view at this index relative to the current window's start
      *
@@ -387,14 +848,22 @@ public abstract class AdapterViewAnimator extends AdapterView<Adapter> implement
      */
     View getViewAtRelativeIndex(int relativeIndex) {
         if (relativeIndex >= 0 && relativeIndex <= getNumActiveViews() - 1 && mAdapter != null) {
-            int i = modulo(mCurrentWindowStartUnbounded + relativeIndex, getWindowSize());
-            if (mViewsMap.get(i) != null) {
-                return mViewsMap.get(i).view;
+            final ViewAndMetaData vm = getMetaDataAtRelativeIndex(relativeIndex);
+            if (vm != null) {
+                return vm.view;
             }
         }
         return null;
     }
 
+    /**
+     * @param relativeIndex Position relative to the current window's start
+     * @return The window entry at this index, null if there is none.
+     */
+    ViewAndMetaData getMetaDataAtRelativeIndex(int relativeIndex) {
+        return mViewsMap.get(modulo(mCurrentWindowStartUnbounded + relativeIndex, getWindowSize()));
+    }
+
     int getNumActiveViews() {
         if (mAdapter != null) {
             return Math.min(getCount() + 1, mMaxNumActiveViews);
@@ -416,70 +885,216 @@ public abstract class AdapterViewAnimator extends AdapterView<Adapter> implement
         }
     }
 
-    private ViewAndMetaData getMetaDataForChild(View child) {
-        // Using SparseArray (The Android compiler says it's better.
-        /*for (ViewAndMetaData vm: mViewsMap.values()) {
-            if (vm.view == child) {
+    /**
+     * @return The window entry of a child, read from its layout params, null if the child
+     *         is not in the window.
+     */
+    ViewAndMetaData getMetaDataForChild(View child) {
+        final ViewGroup.LayoutParams lp = child.getLayoutParams();
+        if (lp instanceof WindowLayoutParams) {
+            final ViewAndMetaData vm = ((WindowLayoutParams) lp).entry;
+            // The entry may have gone back to the pool and be in use for another view
+            if (vm != null && vm.view == child) {
                 return vm;
             }
-        }*/
-        ViewAndMetaData vm = null;
-        
-        for (int i = 0; vm == null && i < mViewsMap.size(); ++i) {
-            ViewAndMetaData v = mViewsMap.valueAt(i);
-            if (v.view == child) {
-                vm = v;
-            }
         }
-        return vm;
-     }
+        return null;
+    }
+
+    /**
+     * The layout params of the children, pointing back to their window entry. A view keeps
+     * them when it is recycled, so that they are only created the first time it is added.
+     */
+    static class WindowLayoutParams extends ViewGroup.LayoutParams {
+        ViewAndMetaData entry;
+
+        WindowLayoutParams(int width, int height) {
+            super(width, height);
+        }
+
+        WindowLayoutParams(ViewGroup.LayoutParams source) {
+            super(source);
+        }
+    }
 
-    LayoutParams createOrReuseLayoutParams(View v) {
+    WindowLayoutParams createOrReuseLayoutParams(View v) {
         final ViewGroup.LayoutParams currentLp = v.getLayoutParams();
-        if (currentLp instanceof ViewGroup.LayoutParams) {
-            LayoutParams lp = (LayoutParams) currentLp;
-            return lp;
+        if (currentLp instanceof WindowLayoutParams) {
+            return (WindowLayoutParams) currentLp;
+        } else if (currentLp != null) {
+            return new WindowLayoutParams(currentLp);
         }
-        return new ViewGroup.LayoutParams(0, 0);
+        return new WindowLayoutParams(0, 0);
     }
 
     void refreshChildren() {
         if (mAdapter == null) return;
-        for (int i = mCurrentWindowStart; i <= mCurrentWindowEnd; i++) {
-            int index = modulo(i, getWindowSize());
+        final int adapterCount = getCount();
+        // A long counter, the window may end at Integer.MAX_VALUE
+        for (long l = mCurrentWindowStart; l <= mCurrentWindowEnd; l++) {
+            final int i = (int) l;
+            final ViewAndMetaData vm = mViewsMap.get(modulo(i, getWindowSize()));
+            if (vm != null) {
+                // get the fresh child from the adapter
+                rebindChild(vm, modulo(i, adapterCount));
+            }
+        }
+    }
 
-            int adapterCount = getCount();
-            // get the fresh child from the adapter
-            final View updatedChild = mAdapter.getView(modulo(i, adapterCount), null, this);
-
-            if (mViewsMap.indexOfKey(index) > -1) {
-                final FrameLayout fl = (FrameLayout) mViewsMap.get(index).view;
-                // add the new child to the frame, if it exists
-                if (updatedChild != null) {
-                    // flush out the old child
-                    fl.removeAllViewsInLayout();
-                    fl.addView(updatedChild);
+    /**
+     * Binds again the item of a window entry. The adapter gets the current view as
+     * <code>convertView</code> when the view type did not change, the view is swapped only
+     * if the adapter returns a different one.
+     *
+     * @param vm The window entry
+     * @param adapterPosition The position of the item in the adapter
+     */
+    void rebindChild(ViewAndMetaData vm, int adapterPosition) {
+        if (vm.mirrored) {
+            final ViewAndMetaData source = canShareDuplicateViews()
+                    ? findMirrorSource(adapterPosition) : null;
+            if (source != null) {
+                ((MirrorView) vm.getAdapterView()).setSource(source.getAdapterView());
+                vm.adapterPosition = adapterPosition;
+                vm.itemId = source.itemId;
+                vm.viewType = source.viewType;
+                return;
+            }
+            // Nothing to mirror anymore, the entry gets an adapter view of its own
+            removeMirror(vm);
+        }
+        final View oldChild = vm.getAdapterView();
+        final int viewType = mAdapter.getItemViewType(adapterPosition);
+        final View convertView = (viewType == vm.viewType) ? oldChild : null;
+        final View updatedChild = mAdapter.getView(adapterPosition, convertView, this);
+
+        // add the new child to the frame, if it exists
+        if (updatedChild != null && updatedChild != oldChild) {
+            if (vm.wrapped) {
+                final FrameLayout fl = (FrameLayout) vm.view;
+                // The snapshot shows the old child
+                clearSnapshot(fl);
+                // flush out the old child
+                fl.removeAllViewsInLayout();
+                fl.addView(updatedChild);
+            } else {
+                replaceChild(vm, updatedChild);
+            }
+            if (oldChild != null) {
+                if (!vm.wrapped) {
+                    RecycleBin.resetTransform(oldChild);
+                }
+                if (mShareDuplicateViews) {
+                    retargetMirrors(oldChild, updatedChild);
                 }
+                mRecycler.addScrapView(oldChild, vm.viewType);
             }
         }
+        if (updatedChild != null) {
+            vm.viewType = viewType;
+        }
+        vm.adapterPosition = adapterPosition;
+        vm.itemId = mAdapter.getItemId(adapterPosition);
     }
 
     /**
-     * This method can be overridden so that subclasses can provide a custom frame in which their
-     * children can live. For example, StackView adds padding to its childrens' frames so as to
-     * accomodate for the highlight effect.
+     * Notifies that the item at the given position changed, its view is bound again if it
+     * is currently in the window. See {@link #notifyItemRangeChanged(int, int)}.
      *
-     * @return The FrameLayout into which children can be placed.
+     * @param position The position of the item in the adapter
      */
-    FrameLayout getFrameForChild() {
-        return new FrameLayout(getContext());
+    public void notifyItemChanged(int position) {
+        notifyItemRangeChanged(position, 1);
     }
 
     /**
-     * Shows only the specified child. The other displays Views exit the screen,
-     * optionally with the with the {@link #getOutAnimation() out animation} and
-     * the specified child enters the screen, optionally with the
-     * {@link #getInAnimation() in animation}.
+     * Notifies that the items in the given range changed, without changing their number
+     * nor their order. Instead of refreshing every child like
+     * {@link android.widget.BaseAdapter#notifyDataSetChanged()} does, only the views of the
+     * changed items currently in the window are bound again, getting their current view
+     * as <code>convertView</code>.
+     *
+     * @param positionStart The position of the first changed item in the adapter
+     * @param itemCount The number of changed items
+     */
+    public void notifyItemRangeChanged(int positionStart, int itemCount) {
+        if (mAdapter == null || itemCount <= 0) return;
+        // A range running to the end of a huge adapter may not fit in an int
+        final long positionEnd = (long) positionStart + itemCount;
+        for (int i = mPrefetched.size() - 1; i >= 0; i--) {
+            final ViewAndMetaData vm = mPrefetched.get(i);
+            if (vm.adapterPosition >= positionStart && vm.adapterPosition < positionEnd) {
+                mPrefetched.remove(i);
+                recyclePrefetched(vm);
+            }
+        }
+        boolean changed = false;
+        // Views on their way out are retired, they are not worth binding again
+        for (int i = 0; i < mViewsMap.getSpan(); i++) {
+            final ViewAndMetaData vm = mViewsMap.getAt(i);
+            if (vm != null && vm.adapterPosition >= positionStart && vm.adapterPosition < positionEnd) {
+                rebindChild(vm, vm.adapterPosition);
+                changed = true;
+            }
+        }
+        if (changed) {
+            requestLayout();
+            invalidate();
+        }
+    }
+
+    /**
+     * Swaps an unwrapped adapter view with a new one, keeping its place among the children.
+     */
+    void replaceChild(ViewAndMetaData vm, View newChild) {
+        final View oldChild = vm.view;
+        if (oldChild == newChild) {
+            return;
+        }
+        final int childIndex = indexOfChild(oldChild);
+        mAnimators.cancel(oldChild);
+        mTransitionEngine.cancel(oldChild);
+        mMoves.cancel(oldChild);
+        oldChild.clearAnimation();
+        removeViewInLayout(oldChild);
+        final WindowLayoutParams lp = createOrReuseLayoutParams(newChild);
+        lp.entry = vm;
+        addViewInLayout(newChild, childIndex, lp);
+        vm.view = newChild;
+        applyTransformForChildAtIndex(newChild, vm.relativeIndex);
+    }
+
+    /**
+     * This method can be overridden so that subclasses can provide a custom frame in which their
+     * children can live. For example, StackView adds padding to its childrens' frames so as to
+     * accomodate for the highlight effect.
+     * <p>
+     * The default {@link TransitionFrame}s are recycled once they leave the window and can draw
+     * from a snapshot, see {@link #setSnapshotTransitions(boolean)}. Customized frames are
+     * neither recycled nor drawn from a snapshot.
+     *
+     * @return The FrameLayout into which children can be placed.
+     */
+    FrameLayout getFrameForChild() {
+        return new TransitionFrame(getContext());
+    }
+
+    /**
+     * @return A frame from the scrap heap, or a new one from {@link #getFrameForChild()}.
+     */
+    FrameLayout obtainFrameForChild() {
+        final FrameLayout fl = mRecycler.getScrapFrame();
+        if (fl != null) {
+            return fl;
+        }
+        return getFrameForChild();
+    }
+
+    /**
+     * Shows only the specified child. The other displays Views exit the screen,
+     * optionally with the with the {@link #getOutAnimation() out animation} and
+     * the specified child enters the screen, optionally with the
+     * {@link #getInAnimation() in animation}.
      *
      * @param childIndex The index of the child to be shown.
      * @param animate Whether or not to use the in and out animations, defaults
@@ -490,119 +1105,504 @@ public abstract class AdapterViewAnimator extends AdapterView<Adapter> implement
         final int adapterCount = getCount();
         if (adapterCount == 0) return;
 
-        for (int i = 0; i < mPreviousViews.size(); i++) {
-            View viewToRemove = mViewsMap.get(mPreviousViews.get(i)).view;
-            mViewsMap.remove(mPreviousViews.get(i));
-            viewToRemove.clearAnimation();
-            if (viewToRemove instanceof ViewGroup) {
-                ViewGroup vg = (ViewGroup) viewToRemove;
-                vg.removeAllViewsInLayout();
-            }
-            // applyTransformForChildAtIndex here just allows for any cleanup
-            // associated with this view that may need to be done by a subclass
-            applyTransformForChildAtIndex(viewToRemove, -1);
-
-            removeViewInLayout(viewToRemove);
-        }
-        mPreviousViews.clear();
-        int newWindowStartUnbounded = childIndex - mActiveOffset;
-        int newWindowEndUnbounded = newWindowStartUnbounded + getNumActiveViews() - 1;
+        removePreviousViews();
+        // Everything this call animates starts together, in the same frame
+        mAnimators.beginBatch();
+        int newWindowStartUnbounded = getWindowStartUnbounded(childIndex);
+        // The end of a window at the end of a huge adapter may not fit in an int
+        long newWindowEndUnbounded = (long) newWindowStartUnbounded + getNumActiveViews() - 1;
         int newWindowStart = Math.max(0, newWindowStartUnbounded);
-        int newWindowEnd = Math.min(adapterCount - 1, newWindowEndUnbounded);
+        int newWindowEnd = (int) Math.min(adapterCount - 1, newWindowEndUnbounded);
 
         if (mLoopViews) {
             newWindowStart = newWindowStartUnbounded;
-            newWindowEnd = newWindowEndUnbounded;
-        }
-        int rangeStart = modulo(newWindowStart, getWindowSize());
-        int rangeEnd = modulo(newWindowEnd, getWindowSize());
-
-        boolean wrap = false;
-        if (rangeStart > rangeEnd) {
-            wrap = true;
+            newWindowEnd = (int) newWindowEndUnbounded;
         }
+        final int windowSize = getWindowSize();
+        int rangeStart = modulo(newWindowStart, windowSize);
 
         // This section clears out any items that are in our active views list
         // but are outside the effective bounds of our window (this is becomes an issue
         // at the extremities of the list, eg. where newWindowStartUnbounded < 0 or
         // newWindowEndUnbounded > adapterCount - 1
-        for (int i = 0; i < mViewsMap.size(); ++i) {
-            Integer index = mViewsMap.keyAt(i);
-            boolean remove = false;
-            if (!wrap && (index < rangeStart || index > rangeEnd)) {
-                remove = true;
-            } else if (wrap && (index > rangeEnd && index < rangeStart)) {
-                remove = true;
-            }
-
-            if (remove) {
-                View previousView = mViewsMap.get(index).view;
-                int oldRelativeIndex = mViewsMap.get(index).relativeIndex;
-
-                mPreviousViews.add(index);
-                transformViewForTransition(oldRelativeIndex, -1, previousView, animate);
+        mViewsMap.moveWindow(rangeStart, newWindowEnd - newWindowStart + 1, windowSize);
+        for (int i = 0; i < mViewsMap.getRetiredCount(); ++i) {
+            final ViewAndMetaData previous = mViewsMap.getRetired(i);
+            if (mShareDuplicateViews && !previous.mirrored) {
+                promoteMirror(previous);
             }
+            transformViewForTransition(previous.relativeIndex, -1, previous.view, animate);
         }
 
+        boolean deferred = false;
         // If the window has changed
         if (!(newWindowStart == mCurrentWindowStart && newWindowEnd == mCurrentWindowEnd &&
               newWindowStartUnbounded == mCurrentWindowStartUnbounded)) {
-            // Run through the indices in the new range
-            for (int i = newWindowStart; i <= newWindowEnd; i++) {
+            final boolean animateMoves = animate && mAnimateMoves;
+            if (animateMoves) {
+                mMoves.rebase();
+            } else {
+                // The children jump to their new place, a running move must not bring them back
+                mMoves.end();
+            }
+            // Run through the indices in the new range, with a long counter since the range
+            // may end at Integer.MAX_VALUE
+            for (long l = newWindowStart; l <= newWindowEnd; l++) {
+                final int i = (int) l;
 
-                int index = modulo(i, getWindowSize());
-                int oldRelativeIndex;
-                if (mViewsMap.indexOfKey(index) > -1) {
-                    oldRelativeIndex = mViewsMap.get(index).relativeIndex;
-                } else {
-                    oldRelativeIndex = -1;
-                }
+                int index = modulo(i, windowSize);
+                ViewAndMetaData vm = mViewsMap.get(index);
                 int newRelativeIndex = i - newWindowStartUnbounded;
 
                 // If this item is in the current window, great, we just need to apply
                 // the transform for it's new relative position in the window, and animate
                 // between it's current and new relative positions
-                boolean inOldRange = (mViewsMap.indexOfKey(index) > -1) && !mPreviousViews.contains(index);
-
-                if (inOldRange) {
-                    View view = mViewsMap.get(index).view;
-                    mViewsMap.get(index).relativeIndex = newRelativeIndex;
+                if (vm != null) {
+                    int oldRelativeIndex = vm.relativeIndex;
+                    View view = vm.view;
+                    vm.relativeIndex = newRelativeIndex;
+                    final boolean moves = animateMoves && oldRelativeIndex != newRelativeIndex;
+                    if (moves) {
+                        mMoves.captureStart(view);
+                    }
                     applyTransformForChildAtIndex(view, newRelativeIndex);
+                    if (moves) {
+                        mMoves.captureEnd(view);
+                    }
                     transformViewForTransition(oldRelativeIndex, newRelativeIndex, view, animate);
 
                 // Otherwise this view is new to the window
+                } else if (mMaterializationBudget > 0 && newRelativeIndex != mActiveOffset) {
+                    // Only the current child is materialized right away, see mMaterializeWindow
+                    deferred = true;
+                    continue;
                 } else {
-                    // Get the new view from the adapter, add it and apply any transform / animation
-                    final int adapterPosition = modulo(i, adapterCount);
-                    View newView = mAdapter.getView(adapterPosition, null, this);
-                    long itemId = mAdapter.getItemId(adapterPosition);
-
-                    // We wrap the new view in a FrameLayout so as to respect the contract
-                    // with the adapter, that is, that we don't modify this view directly
-                    FrameLayout fl = getFrameForChild();
-
-                    // If the view from the adapter is null, we still keep an empty frame in place
-                    if (newView != null) {
-                       fl.addView(newView);
-                    }
-                    mViewsMap.put(index, new ViewAndMetaData(fl, newRelativeIndex,
-                            adapterPosition, itemId));
-                    addChild(fl);
-                    applyTransformForChildAtIndex(fl, newRelativeIndex);
-                    transformViewForTransition(-1, newRelativeIndex, fl, animate);
+                    materializeChild(i, index, newRelativeIndex, adapterCount, animate, -1);
                 }
-                mViewsMap.get(index).view.bringToFront();
             }
+            // The window order changed, only the children out of place move
+            reorderChildren();
             mCurrentWindowStart = newWindowStart;
             mCurrentWindowEnd = newWindowEnd;
             mCurrentWindowStartUnbounded = newWindowStartUnbounded;
         }
+        mAnimators.endBatch();
+        mMoves.start();
+        if (deferred) {
+            scheduleMaterialization(animate);
+        }
+        schedulePrefetch();
+        dispatchDataPrefetch();
         requestLayout();
         invalidate();
     }
 
-    private void addChild(View child) {
-        addViewInLayout(child, -1, createOrReuseLayoutParams(child));
+    /**
+     * Gets the view of a new index of the window from the adapter, adds it and applies
+     * any transform / animation.
+     *
+     * @param i The index, relative to the adapter, possibly unbounded
+     * @param index The index modulo {@link #getWindowSize()}, key of {@link #mViewsMap}
+     * @param relativeIndex The index relative to the window start
+     * @param adapterCount The number of items
+     * @param animate Whether or not to use the in animation
+     * @param childIndex Where the child goes among the children, -1 to put it on top
+     * @return The new window entry
+     */
+    ViewAndMetaData materializeChild(int i, int index, int relativeIndex, int adapterCount,
+            boolean animate, int childIndex) {
+        final int adapterPosition = modulo(i, adapterCount);
+        final ViewAndMetaData source = canShareDuplicateViews()
+                ? findMirrorSource(adapterPosition) : null;
+        ViewAndMetaData vm;
+        if (source != null) {
+            vm = createMirror(source, relativeIndex);
+        } else {
+            // A view prepared in idle time only needs to be attached
+            vm = takePrefetched(adapterPosition);
+            if (vm != null) {
+                vm.relativeIndex = relativeIndex;
+            } else {
+                vm = createChild(adapterPosition, relativeIndex);
+            }
+        }
+        final View child = vm.view;
+        mViewsMap.put(index, vm);
+        addChild(vm, childIndex);
+        applyTransformForChildAtIndex(child, relativeIndex);
+        transformViewForTransition(-1, relativeIndex, child, animate);
+        return vm;
+    }
+
+    /**
+     * Gets the view of an item from the adapter and wraps it in a frame if needed.
+     *
+     * @return The entry of the new child, not attached yet.
+     */
+    ViewAndMetaData createChild(int adapterPosition, int relativeIndex) {
+        final int viewType = mAdapter.getItemViewType(adapterPosition);
+        View newView = obtainView(adapterPosition, viewType);
+        long itemId = mAdapter.getItemId(adapterPosition);
+
+        final View child;
+        final boolean wrapped = mWrapAdapterViews || newView == null;
+        if (wrapped) {
+            // We wrap the new view in a FrameLayout so as to respect the contract
+            // with the adapter, that is, that we don't modify this view directly
+            FrameLayout fl = obtainFrameForChild();
+
+            // If the view from the adapter is null, we still keep an empty frame in place
+            if (newView != null) {
+               fl.addView(newView);
+            }
+            child = fl;
+        } else {
+            child = newView;
+        }
+        final ViewAndMetaData vm = obtainMetaData(child, relativeIndex, adapterPosition, itemId,
+                viewType);
+        vm.wrapped = wrapped;
+        return vm;
+    }
+
+    /**
+     * @return True if some indexes of the window can show the same adapter position and their
+     *         views are to be shared.
+     */
+    boolean canShareDuplicateViews() {
+        return mShareDuplicateViews && mWrapAdapterViews && mLoopViews
+                && getWindowSize() > getCount();
+    }
+
+    /**
+     * @return The entry of the window holding the adapter view of a position, null if there
+     *         is none.
+     */
+    ViewAndMetaData findMirrorSource(int adapterPosition) {
+        for (int i = 0; i < mViewsMap.getSpan(); i++) {
+            final ViewAndMetaData vm = mViewsMap.getAt(i);
+            if (vm != null && !vm.mirrored && vm.wrapped && vm.adapterPosition == adapterPosition
+                    && vm.getAdapterView() != null) {
+                return vm;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Creates an entry drawing the adapter view of another one, in a frame of its own so that
+     * it can be transformed and animated independently.
+     *
+     * @return The entry of the new child, not attached yet.
+     */
+    ViewAndMetaData createMirror(ViewAndMetaData source, int relativeIndex) {
+        final int last = mMirrorScrap.size() - 1;
+        final MirrorView mirror = last >= 0 ? mMirrorScrap.remove(last)
+                : new MirrorView(getContext());
+        mirror.setSource(source.getAdapterView());
+
+        final FrameLayout fl = obtainFrameForChild();
+        fl.addView(mirror);
+        final ViewAndMetaData vm = obtainMetaData(fl, relativeIndex, source.adapterPosition,
+                source.itemId, source.viewType);
+        vm.mirrored = true;
+        return vm;
+    }
+
+    /**
+     * Hands the adapter view of an entry leaving the window over to one of its mirrors still
+     * in it, if any. The two frames swap their content: the leaving entry becomes the mirror
+     * and keeps showing the item while it animates out.
+     */
+    void promoteMirror(ViewAndMetaData leaving) {
+        final View adapterView = leaving.getAdapterView();
+        if (adapterView == null) return;
+
+        for (int i = 0; i < mViewsMap.getSpan(); i++) {
+            final ViewAndMetaData vm = mViewsMap.getAt(i);
+            if (vm == null || !vm.mirrored) continue;
+            final MirrorView mirror = (MirrorView) vm.getAdapterView();
+            if (mirror.getSource() != adapterView) continue;
+
+            final ViewGroup leavingFrame = (ViewGroup) leaving.view;
+            final ViewGroup frame = (ViewGroup) vm.view;
+            leavingFrame.removeViewInLayout(adapterView);
+            frame.removeViewInLayout(mirror);
+            frame.addView(adapterView);
+            leavingFrame.addView(mirror);
+
+            vm.mirrored = false;
+            vm.viewType = leaving.viewType;
+            leaving.mirrored = true;
+            // The mirrors of the adapter view are now redrawn by its new frame
+            if (leavingFrame instanceof TransitionFrame) {
+                ((TransitionFrame) leavingFrame).retargetMirrors();
+            }
+            return;
+        }
+    }
+
+    /**
+     * Points the mirrors of an adapter view to the view that replaced it.
+     */
+    private void retargetMirrors(View oldSource, View newSource) {
+        for (int i = 0; i < mViewsMap.getSpan(); i++) {
+            final ViewAndMetaData vm = mViewsMap.getAt(i);
+            if (vm == null || !vm.mirrored) continue;
+            final MirrorView mirror = (MirrorView) vm.getAdapterView();
+            if (mirror.getSource() == oldSource) {
+                mirror.setSource(newSource);
+            }
+        }
+    }
+
+    /**
+     * Takes the mirror out of the frame of an entry, the frame is then empty.
+     */
+    private void removeMirror(ViewAndMetaData vm) {
+        final MirrorView mirror = (MirrorView) vm.getAdapterView();
+        ((ViewGroup) vm.view).removeAllViewsInLayout();
+        vm.mirrored = false;
+        if (mirror != null) {
+            mirror.setSource(null);
+            mMirrorScrap.add(mirror);
+        }
+    }
+
+    /**
+     * @return The number of entries of the window drawing the adapter view of another entry.
+     */
+    int getMirrorCount() {
+        int count = 0;
+        for (int i = 0; i < mViewsMap.getSpan(); i++) {
+            final ViewAndMetaData vm = mViewsMap.getAt(i);
+            if (vm != null && vm.mirrored) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private void scheduleMaterialization(boolean animate) {
+        mMaterializeWindow.mAnimate = animate;
+        if (!mMaterializationScheduled) {
+            mMaterializationScheduled = true;
+            post(mMaterializeWindow);
+        }
+    }
+
+    /**
+     * Materializes the indexes of the window that {@link #showOnly(int, boolean)} left empty,
+     * closest to the current child first, until the time budget of the frame runs out. At least
+     * one child is materialized per frame, the rest is left to the next one.
+     */
+    final class MaterializeWindow implements Runnable {
+        boolean mAnimate;
+
+        @Override
+        public void run() {
+            mMaterializationScheduled = false;
+            if (mAdapter == null) return;
+            final int adapterCount = getCount();
+            if (adapterCount == 0) return;
+
+            final int windowSize = getWindowSize();
+            final long deadline = SystemClock.uptimeMillis() + mMaterializationBudget;
+            final int current = mCurrentWindowStartUnbounded + mActiveOffset;
+            final int maxDistance = mCurrentWindowEnd - mCurrentWindowStart;
+            boolean materialized = false;
+
+            for (int distance = 1; distance <= maxDistance; distance++) {
+                // The next child first, flipping forward is the common case
+                for (int side = 0; side < 2; side++) {
+                    final long unbounded = side == 0 ? (long) current + distance
+                            : (long) current - distance;
+                    if (unbounded < mCurrentWindowStart || unbounded > mCurrentWindowEnd) continue;
+                    final int i = (int) unbounded;
+
+                    final int index = modulo(i, windowSize);
+                    if (mViewsMap.get(index) != null) continue;
+
+                    if (materialized && mMaterializationBudget > 0
+                            && SystemClock.uptimeMillis() >= deadline) {
+                        scheduleMaterialization(mAnimate);
+                        requestLayout();
+                        invalidate();
+                        return;
+                    }
+                    final int relativeIndex = i - mCurrentWindowStartUnbounded;
+                    materializeChild(i, index, relativeIndex, adapterCount, mAnimate,
+                            getChildIndexForRelativeIndex(relativeIndex));
+                    materialized = true;
+                }
+            }
+            if (materialized) {
+                requestLayout();
+                invalidate();
+            }
+        }
+    }
+
+    /**
+     * @return Where a child at the given relative index goes among the children, so that the
+     *         children keep the order {@link #reorderChildren()} puts them in.
+     */
+    int getChildIndexForRelativeIndex(int relativeIndex) {
+        int above = 0;
+        for (int i = 0; i < mViewsMap.getSpan(); i++) {
+            final ViewAndMetaData vm = mViewsMap.getAt(i);
+            if (vm != null && vm.relativeIndex > relativeIndex) {
+                above++;
+            }
+        }
+        return getChildCount() - above;
+    }
+
+    /**
+     * Puts the children of the window above the others, in window order, so that each one is
+     * drawn above and gets the touch events before the ones preceding it in the window.
+     * <p>
+     * Unlike {@link View#bringToFront()}, moving a child this way does not request a layout,
+     * and the children already in place are not moved: flipping forward typically moves
+     * nothing, flipping backward moves the window once. Finding the children out of place
+     * costs O(window) comparisons, keeping the child order instead of drawing the children
+     * in a custom order lets touch dispatch find the top child on every API level.
+     */
+    void reorderChildren() {
+        final int span = mViewsMap.getSpan();
+        if (mWindowOrder.length < span) {
+            mWindowOrder = new View[span];
+        }
+        int ranked = 0;
+        for (int i = 0; i < span; i++) {
+            final ViewAndMetaData vm = mViewsMap.getAt(i);
+            if (vm != null) {
+                mWindowOrder[ranked++] = vm.view;
+            }
+        }
+        final int first = getFirstChildOutOfPlace(ranked);
+        if (first < ranked) {
+            moveToTop(first, ranked);
+            // A child out of the window was between the ones moved, it is still above the others
+            if (getFirstChildOutOfPlace(ranked) < ranked) {
+                moveToTop(0, ranked);
+            }
+        }
+        for (int i = 0; i < ranked; i++) {
+            mWindowOrder[i] = null;
+        }
+    }
+
+    /**
+     * @return The rank in {@link #mWindowOrder} of the first view that is not where it should
+     *         be among the children, <code>ranked</code> if they all are.
+     */
+    private int getFirstChildOutOfPlace(int ranked) {
+        final int below = getChildCount() - ranked;
+        int rank = 0;
+        while (rank < ranked && getChildAt(below + rank) == mWindowOrder[rank]) {
+            rank++;
+        }
+        return rank;
+    }
+
+    private void moveToTop(int fromRank, int toRank) {
+        for (int rank = fromRank; rank < toRank; rank++) {
+            final View child = mWindowOrder[rank];
+            detachViewFromParent(child);
+            attachViewToParent(child, -1, child.getLayoutParams());
+        }
+    }
+
+    /**
+     * Gets the view for the given adapter position from the adapter, handing it
+     * a scrap view of the same type as <code>convertView</code> when there is one.
+     *
+     * @param adapterPosition The position of the item in the adapter
+     * @param viewType The type of the item, see {@link Adapter#getItemViewType(int)}
+     * @return The view returned by the adapter
+     */
+    View obtainView(int adapterPosition, int viewType) {
+        final View scrap = mRecycler.getScrapView(viewType);
+        final View child = mAdapter.getView(adapterPosition, scrap, this);
+        mRecycler.onViewObtained(scrap, child, viewType);
+        return child;
+    }
+
+    /**
+     * Removes the views pending removal, that is, the entries retired from {@link #mViewsMap}.
+     */
+    void removePreviousViews() {
+        for (int i = 0; i < mViewsMap.getRetiredCount(); i++) {
+            removeWindowEntry(mViewsMap.getRetired(i));
+        }
+        mViewsMap.clearRetired();
+    }
+
+    /**
+     * Removes every entry of the window and the ones pending removal through
+     * {@link #removeWindowEntry(ViewAndMetaData)}, which cancels their transitions and
+     * recycles their views, frames and metadata.
+     */
+    void removeAllWindowEntries() {
+        for (int i = 0; i < mViewsMap.getSpan(); i++) {
+            final ViewAndMetaData vm = mViewsMap.getAt(i);
+            if (vm != null) {
+                removeWindowEntry(vm);
+            }
+        }
+        removePreviousViews();
+        mViewsMap.clear();
+        removeAllViewsInLayout();
+    }
+
+    /**
+     * Removes the view of an entry that is not in {@link #mViewsMap} anymore, giving the
+     * adapter view and its frame back to the scrap heap.
+     */
+    void removeWindowEntry(ViewAndMetaData vm) {
+        View viewToRemove = vm.view;
+        // Otherwise the running animator would keep the view until it ends
+        mAnimators.cancel(viewToRemove);
+        mTransitionEngine.cancel(viewToRemove);
+        mMoves.cancel(viewToRemove);
+        viewToRemove.clearAnimation();
+        // The bitmap goes back to the pool before the frame goes to the scrap heap
+        clearSnapshot(viewToRemove);
+        if (vm.mirrored) {
+            // The adapter view belongs to another entry, only the frame goes to the scrap heap
+            removeMirror(vm);
+            applyTransformForChildAtIndex(viewToRemove, -1);
+            removeViewInLayout(viewToRemove);
+            mRecycler.addScrapFrame((FrameLayout) viewToRemove);
+            releaseMetaData(vm);
+            return;
+        }
+        // The adapter view goes back to the scrap heap for the next getView
+        final View scrap = vm.getAdapterView();
+        if (vm.wrapped) {
+            ViewGroup vg = (ViewGroup) viewToRemove;
+            vg.removeAllViewsInLayout();
+        }
+        // applyTransformForChildAtIndex here just allows for any cleanup
+        // associated with this view that may need to be done by a subclass
+        applyTransformForChildAtIndex(viewToRemove, -1);
+
+        removeViewInLayout(viewToRemove);
+        if (vm.wrapped) {
+            mRecycler.addScrapFrame((FrameLayout) viewToRemove);
+        } else {
+            RecycleBin.resetTransform(viewToRemove);
+        }
+        mRecycler.addScrapView(scrap, vm.viewType);
+        releaseMetaData(vm);
+    }
+
+    private void addChild(ViewAndMetaData vm, int childIndex) {
+        final View child = vm.view;
+        final WindowLayoutParams lp = createOrReuseLayoutParams(child);
+        lp.entry = vm;
+        addViewInLayout(child, childIndex, lp);
 
         // This code is used to obtain a reference width and height of a child in case we need
         // to decide our own size. TODO: Do we want to update the size of the child that we're
@@ -631,6 +1631,42 @@ public abstract class AdapterViewAnimator extends AdapterView<Adapter> implement
         mTouchMode = TOUCH_MODE_NONE;
     }
 
+    /**
+     * Hides the tap feedback once the pressed state has been shown long enough, then posts
+     * {@link #mPerformItemClick}. Preallocated like it, so that a tap does not create runnables.
+     */
+    final class HideTapFeedback implements Runnable {
+        @Override
+        public void run() {
+            final View v = mPerformItemClick.mChild;
+            if (v != null) {
+                hideTapFeedback(v);
+                post(mPerformItemClick);
+            }
+        }
+    }
+
+    /**
+     * Performs the click on the view tapped last, with the position and id it had at the tap.
+     */
+    final class PerformItemClick implements Runnable {
+        View mChild;
+        int mPosition;
+        long mItemId;
+
+        @Override
+        public void run() {
+            final View v = mChild;
+            mChild = null;
+            if (v != null) {
+                performItemClick(v, mPosition, mItemId);
+            }
+        }
+    }
+
+    private final HideTapFeedback mHideTapFeedback = new HideTapFeedback();
+    private final PerformItemClick mPerformItemClick = new PerformItemClick();
+
     final class CheckForTap implements Runnable {
         @Override
         public void run() {
@@ -665,31 +1701,26 @@ public abstract class AdapterViewAnimator extends AdapterView<Adapter> implement
             case MotionEvent.ACTION_UP: {
                 if (mTouchMode == TOUCH_MODE_DOWN_IN_CURRENT_VIEW) {
                     final View v = getCurrentView();
-                    final ViewAndMetaData viewData = getMetaDataForChild(v);
+                    final ViewAndMetaData viewData = getMetaDataAtRelativeIndex(mActiveOffset);
                     if (v != null) {
                        if (isTransformedTouchPointInView(ev.getX(), ev.getY(), v, null)) {
                             final Handler handler = getHandler();
                             if (handler != null) {
                                 handler.removeCallbacks(mPendingCheckForTap);
                             }
+                            final PerformItemClick click = mPerformItemClick;
+                            if (click.mChild != null) {
+                                // The click of the previous tap is still pending, deliver it first
+                                removeCallbacks(mHideTapFeedback);
+                                removeCallbacks(click);
+                                hideTapFeedback(click.mChild);
+                                click.run();
+                            }
                             showTapFeedback(v);
-                            postDelayed(new Runnable() {
-                                @Override
-                                public void run() {
-                                    hideTapFeedback(v);
-                                    post(new Runnable() {
-                                        @Override
-                                        public void run() {
-                                            if (viewData != null) {
-                                                performItemClick(v, viewData.adapterPosition,
-                                                        viewData.itemId);
-                                            } else {
-                                                performItemClick(v, 0, 0);
-                                            }
-                                        }
-                                    });
-                                }
-                            }, ViewConfiguration.getPressedStateDuration());
+                            click.mChild = v;
+                            click.mPosition = viewData != null ? viewData.adapterPosition : 0;
+                            click.mItemId = viewData != null ? viewData.itemId : 0;
+                            postDelayed(mHideTapFeedback, ViewConfiguration.getPressedStateDuration());
                             handled = true;
                         }
                     }
@@ -712,12 +1743,178 @@ public abstract class AdapterViewAnimator extends AdapterView<Adapter> implement
         final int count = getChildCount();
         final int childWidth = getMeasuredWidth() - getPaddingLeft() - getPaddingRight();
         final int childHeight = getMeasuredHeight() - getPaddingTop() - getPaddingBottom();
+        final int widthMeasureSpec = MeasureSpec.makeMeasureSpec(childWidth, MeasureSpec.EXACTLY);
+        final int heightMeasureSpec = MeasureSpec.makeMeasureSpec(childHeight, MeasureSpec.EXACTLY);
+        if (!mShareDuplicateViews) {
+            for (int i = 0; i < count; i++) {
+                getChildAt(i).measure(widthMeasureSpec, heightMeasureSpec);
+            }
+            return;
+        }
 
+        // The mirrors take the size of their sources, which therefore measure first
+        forceMirrorsLayout();
         for (int i = 0; i < count; i++) {
             final View child = getChildAt(i);
-            child.measure(MeasureSpec.makeMeasureSpec(childWidth, MeasureSpec.EXACTLY),
-                    MeasureSpec.makeMeasureSpec(childHeight, MeasureSpec.EXACTLY));
+            if (!isMirrorFrame(child)) {
+                child.measure(widthMeasureSpec, heightMeasureSpec);
+            }
         }
+        for (int i = 0; i < count; i++) {
+            final View child = getChildAt(i);
+            if (isMirrorFrame(child)) {
+                child.measure(widthMeasureSpec, heightMeasureSpec);
+            }
+        }
+    }
+
+    private boolean isMirrorFrame(View child) {
+        final ViewAndMetaData vm = getMetaDataForChild(child);
+        return vm != null && vm.mirrored;
+    }
+
+    /**
+     * Makes the mirrors of the sources that asked for a layout measure again, since the
+     * layout requests of a source do not reach its mirrors.
+     */
+    private void forceMirrorsLayout() {
+        for (int i = 0; i < mViewsMap.getSpan(); i++) {
+            final ViewAndMetaData vm = mViewsMap.getAt(i);
+            if (vm != null && vm.mirrored) {
+                final MirrorView mirror = (MirrorView) vm.getAdapterView();
+                final View source = mirror.getSource();
+                if (source != null && source.isLayoutRequested()) {
+                    vm.view.forceLayout();
+                    mirror.forceLayout();
+                }
+            }
+        }
+    }
+
+    @Override
+    protected boolean getChildStaticTransformation(View child, Transformation t) {
+        return mTransitionEngine.getTransformation(child, getDrawingTime(), t);
+    }
+
+    @Override
+    protected void dispatchDraw(Canvas canvas) {
+        computeOcclusion();
+        mDrawnChildCount = 0;
+        super.dispatchDraw(canvas);
+        mLastDrawnChildCount = mDrawnChildCount;
+        // The frame pulse of the frame transitions
+        if (mTransitionEngine.onFrame(getDrawingTime())) {
+            invalidate();
+        }
+    }
+
+    /**
+     * Skips the children hidden behind an opaque child drawn after them, in a stacked window
+     * usually all of them but the current one and the ones in transition.
+     */
+    @Override
+    protected boolean drawChild(Canvas canvas, View child, long drawingTime) {
+        if (mOcclusion.getOccludedCount() > 0 && mOcclusion.isOccluded(child)) {
+            return false;
+        }
+        mDrawnChildCount++;
+        return super.drawChild(canvas, child, drawingTime);
+    }
+
+    /**
+     * Finds the children that will not be visible in the frame about to be drawn. Only still
+     * children take part: a child that is animating or transformed in any way neither occludes
+     * nor is occluded, since its bounds on screen are not its layout bounds.
+     */
+    void computeOcclusion() {
+        mOcclusion.reset();
+        final int count = getChildCount();
+        if (count < 2 || !OCCLUSION_SUPPORTED) {
+            return;
+        }
+        for (int i = count - 1; i >= 0; i--) {
+            final View child = getChildAt(i);
+            if (child.getVisibility() != VISIBLE || !isStill(child)) {
+                continue;
+            }
+            final int left = child.getLeft();
+            final int top = child.getTop();
+            final int right = child.getRight();
+            final int bottom = child.getBottom();
+            if (mOcclusion.isCovered(left, top, right, bottom)) {
+                // What it would occlude is covered already
+                mOcclusion.addOccluded(child);
+            } else if (child.isOpaque()) {
+                mOcclusion.addOccluder(left, top, right, bottom);
+            } else if (child instanceof TransitionFrame && ((ViewGroup) child).getChildCount() == 1) {
+                // A frame is transparent, the adapter view it wraps often is not
+                final View content = ((ViewGroup) child).getChildAt(0);
+                if (content.getVisibility() == VISIBLE && content.isOpaque() && isStill(content)) {
+                    mOcclusion.addOccluder(left + content.getLeft(), top + content.getTop(),
+                            left + content.getRight(), top + content.getBottom());
+                }
+            }
+        }
+    }
+
+    /**
+     * {@link View#isOpaque()} only exists from API 7.
+     */
+    private static boolean isOcclusionSupported() {
+        return getSdkVersion() >= 7;
+    }
+
+    /**
+     * @return The API level of the device, read from {@link Build.VERSION#SDK} since
+     *         {@link Build.VERSION#SDK_INT} only exists from API 4. The newest possible if it
+     *         cannot be read.
+     */
+    @SuppressWarnings("deprecation")
+    static int getSdkVersion() {
+        try {
+            return Integer.parseInt(Build.VERSION.SDK);
+        } catch (NumberFormatException e) {
+            return Integer.MAX_VALUE;
+        }
+    }
+
+    /**
+     * @return True if the view is drawn where it is laid out, fully opaque, and is not about
+     *         to move.
+     */
+    boolean isStill(View view) {
+        if (mAnimators.isAnimating(view) || mTransitionEngine.hasTransition(view)
+                || mMoves.isMoving(view)) {
+            return false;
+        }
+        final Animation animation = view.getAnimation();
+        if (AnimatorProxy.NEEDS_PROXY) {
+            // The view properties live in an AnimatorProxy, reading them would create one
+            if (animation == null) {
+                return true;
+            }
+            if (!(animation instanceof AnimatorProxy)) {
+                return false;
+            }
+        } else if (animation != null) {
+            return false;
+        }
+        return ViewHelper.getAlpha(view) == 1.0f
+                && ViewHelper.getTranslationX(view) == 0.0f
+                && ViewHelper.getTranslationY(view) == 0.0f
+                && ViewHelper.getScaleX(view) == 1.0f
+                && ViewHelper.getScaleY(view) == 1.0f
+                && ViewHelper.getRotation(view) == 0.0f
+                && ViewHelper.getRotationX(view) == 0.0f
+                && ViewHelper.getRotationY(view) == 0.0f;
+    }
+
+    /**
+     * @return The number of children drawn in the last frame, the others being hidden behind
+     *         opaque children.
+     */
+    public int getDrawnChildCount() {
+        return mLastDrawnChildCount;
     }
 
     @Override
@@ -729,61 +1926,535 @@ public abstract class AdapterViewAnimator extends AdapterView<Adapter> implement
 
         boolean haveChildRefSize = (mReferenceChildWidth != -1 && mReferenceChildHeight != -1);
 
-        // We need to deal with the case where our parent hasn't told us how
-        // big we should be. In this case we try to use the desired size of the first
-        // child added.
-        if (heightSpecMode == MeasureSpec.UNSPECIFIED) {
-            heightSpecSize = haveChildRefSize ? mReferenceChildHeight + getPaddingTop() +
-                    getPaddingBottom() : 0;
-        } else if (heightSpecMode == MeasureSpec.AT_MOST) {
-            if (haveChildRefSize) {
-                int height = mReferenceChildHeight + getPaddingTop() + getPaddingBottom();
-                if (height > heightSpecSize) {
-                    heightSpecSize |= MEASURED_STATE_TOO_SMALL;
-                } else {
-                    heightSpecSize = height;
-                }
+        // We need to deal with the case where our parent hasn't told us how
+        // big we should be. In this case we try to use the desired size of the first
+        // child added.
+        if (heightSpecMode == MeasureSpec.UNSPECIFIED) {
+            heightSpecSize = haveChildRefSize ? mReferenceChildHeight + getPaddingTop() +
+                    getPaddingBottom() : 0;
+        } else if (heightSpecMode == MeasureSpec.AT_MOST) {
+            if (haveChildRefSize) {
+                int height = mReferenceChildHeight + getPaddingTop() + getPaddingBottom();
+                if (height > heightSpecSize) {
+                    heightSpecSize |= MEASURED_STATE_TOO_SMALL;
+                } else {
+                    heightSpecSize = height;
+                }
+            }
+        }
+
+        if (widthSpecMode == MeasureSpec.UNSPECIFIED) {
+            widthSpecSize = haveChildRefSize ? mReferenceChildWidth + getPaddingLeft() +
+                    getPaddingRight() : 0;
+        } else if (heightSpecMode == MeasureSpec.AT_MOST) {
+            if (haveChildRefSize) {
+                int width = mReferenceChildWidth + getPaddingLeft() + getPaddingRight();
+                if (width > widthSpecSize) {
+                    widthSpecSize |= MEASURED_STATE_TOO_SMALL;
+                } else {
+                    widthSpecSize = width;
+                }
+            }
+        }
+
+        setMeasuredDimension(widthSpecSize, heightSpecSize);
+        measureChildren();
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        // The views stay, they must not stay halfway through a transition
+        mAnimators.endAll();
+        mTransitionEngine.finishAll();
+        mMoves.end();
+        // Only the bitmaps still drawn by a frame holding the end of its transition remain
+        mSnapshotPool.clear();
+        unregisterFromSharedPool();
+        if (mPrefetchScheduled) {
+            Looper.myQueue().removeIdleHandler(mPrefetcher);
+            mPrefetchScheduled = false;
+        }
+        clearPrefetched();
+    }
+
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        registerWithSharedPool();
+        schedulePrefetch();
+    }
+
+    /**
+     * Handles the data changes notified since the last pass. It is posted at most once
+     * per layout, the notifications arriving before it runs are folded into it.
+     */
+    final class HandleDataChanged implements Runnable {
+        @Override
+        public void run() {
+            mDataChangedPending = false;
+            mPendingDataChangeCount = 0;
+
+            mAdapterViewRefl.handleDataChanged();
+            clearPrefetched();
+            resetDataPrefetch();
+            // With stable ids the displayed item keeps its place and the window is rebuilt around it
+            final boolean remapped = mAdapter != null && mAdapter.hasStableIds()
+                    && remapWindowByItemId();
+            if (!remapped) {
+                // if the data changes, mWhichChild might be out of the bounds of the adapter
+                // in this case, we reset mWhichChild to the beginning
+                if (mWhichChild >= getWindowSize()) {
+                    mWhichChild = 0;
+
+                    showOnly(mWhichChild, false);
+                } else if (mAdapterViewRefl.getOldItemCount() != getCount()) {
+                    showOnly(mWhichChild, false);
+                }
+                refreshChildren();
+            }
+            requestLayout();
+        }
+    }
+
+    /**
+     * Prepares the items around the window in idle time, one per idle pass, so that a flip
+     * finds their view ready, see {@link #setOffscreenPageLimit(int, boolean)}.
+     */
+    final class Prefetcher implements MessageQueue.IdleHandler {
+        @Override
+        public boolean queueIdle() {
+            if (!prefetchNext()) {
+                mPrefetchScheduled = false;
+                return false;
+            }
+            return true;
+        }
+    }
+
+    void schedulePrefetch() {
+        if (mOffscreenPageLimit > 0 && !mPrefetchScheduled) {
+            mPrefetchScheduled = true;
+            Looper.myQueue().addIdleHandler(mPrefetcher);
+        }
+    }
+
+    /**
+     * @return The adapter position of the offscreen item at the given distance from the window,
+     *         after it if the distance is positive, before it otherwise. -1 if there is none.
+     */
+    int getOffscreenPosition(int distance, int adapterCount) {
+        final long i = distance > 0 ? (long) mCurrentWindowEnd + distance
+                : (long) mCurrentWindowStart + distance;
+        if (!mLoopViews && (i < 0 || i >= adapterCount)) {
+            return -1;
+        }
+        return modulo(i, adapterCount);
+    }
+
+    private boolean isOffscreenPosition(int adapterPosition, int adapterCount) {
+        for (int distance = 1; distance <= mOffscreenPageLimit; distance++) {
+            if (getOffscreenPosition(distance, adapterCount) == adapterPosition
+                    || (mPrefetchPrevious && getOffscreenPosition(-distance, adapterCount) == adapterPosition)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Drops the prefetched views that are not around the window anymore, then prefetches
+     * the closest missing item.
+     *
+     * @return False if there is nothing left to prefetch.
+     */
+    boolean prefetchNext() {
+        if (mAdapter == null || mOffscreenPageLimit == 0) return false;
+        final int adapterCount = getCount();
+        if (adapterCount == 0 || mCurrentWindowEnd < mCurrentWindowStart) return false;
+
+        for (int i = mPrefetched.size() - 1; i >= 0; i--) {
+            final ViewAndMetaData vm = mPrefetched.get(i);
+            if (!isOffscreenPosition(vm.adapterPosition, adapterCount)) {
+                mPrefetched.remove(i);
+                recyclePrefetched(vm);
+            }
+        }
+
+        for (int distance = 1; distance <= mOffscreenPageLimit; distance++) {
+            for (int side = 0; side < 2; side++) {
+                if (side == 1 && !mPrefetchPrevious) continue;
+                final int position = getOffscreenPosition(side == 0 ? distance : -distance,
+                        adapterCount);
+                if (position < 0 || findPrefetched(position) >= 0) continue;
+
+                final ViewAndMetaData vm = createChild(position, -1);
+                measurePrefetched(vm.view);
+                mPrefetched.add(vm);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Measures a detached child like {@link #measureChildren()} will, so that attaching it
+     * does not change its size. Before the first layout the child gets measured unspecified.
+     */
+    private void measurePrefetched(View child) {
+        final int childWidth = getMeasuredWidth() - getPaddingLeft() - getPaddingRight();
+        final int childHeight = getMeasuredHeight() - getPaddingTop() - getPaddingBottom();
+        if (childWidth > 0 && childHeight > 0) {
+            child.measure(MeasureSpec.makeMeasureSpec(childWidth, MeasureSpec.EXACTLY),
+                    MeasureSpec.makeMeasureSpec(childHeight, MeasureSpec.EXACTLY));
+        } else {
+            final int measureSpec = MeasureSpec.makeMeasureSpec(0, MeasureSpec.UNSPECIFIED);
+            child.measure(measureSpec, measureSpec);
+        }
+    }
+
+    private int findPrefetched(int adapterPosition) {
+        for (int i = 0; i < mPrefetched.size(); i++) {
+            if (mPrefetched.get(i).adapterPosition == adapterPosition) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return The prefetched entry of the item, removed from the prefetched ones,
+     *         null if there is none.
+     */
+    ViewAndMetaData takePrefetched(int adapterPosition) {
+        final int i = findPrefetched(adapterPosition);
+        return i < 0 ? null : mPrefetched.remove(i);
+    }
+
+    private void recyclePrefetched(ViewAndMetaData vm) {
+        final View scrap = vm.getAdapterView();
+        if (vm.wrapped) {
+            ((ViewGroup) vm.view).removeAllViewsInLayout();
+            mRecycler.addScrapFrame((FrameLayout) vm.view);
+        }
+        mRecycler.addScrapView(scrap, vm.viewType);
+        releaseMetaData(vm);
+    }
+
+    /**
+     * Gives every prefetched view back to the scrap heap, when they do not match the adapter
+     * or the configuration of the animator anymore.
+     */
+    void clearPrefetched() {
+        for (int i = mPrefetched.size() - 1; i >= 0; i--) {
+            recyclePrefetched(mPrefetched.get(i));
+        }
+        mPrefetched.clear();
+    }
+
+    /**
+     * @return The number of items whose view is ready offscreen.
+     */
+    int getPrefetchedCount() {
+        return mPrefetched.size();
+    }
+
+    /**
+     * Tells a {@link PrefetchingAdapter} which positions enter the window next, unless it
+     * has already been told since the window last moved.
+     */
+    void dispatchDataPrefetch() {
+        if (!(mAdapter instanceof PrefetchingAdapter) || mDataPrefetchDistance == 0) return;
+        final int adapterCount = getCount();
+        if (adapterCount == 0 || mCurrentWindowEnd < mCurrentWindowStart) return;
+
+        if (mDataPrefetchPositions.length < mDataPrefetchDistance) {
+            mDataPrefetchPositions = new int[mDataPrefetchDistance];
+        }
+        int count = 0;
+        for (int distance = 1; distance <= mDataPrefetchDistance; distance++) {
+            final long i = mFlipDirection > 0 ? (long) mCurrentWindowEnd + distance
+                    : (long) mCurrentWindowStart - distance;
+            if (!mLoopViews && (i < 0 || i >= adapterCount)) break;
+            mDataPrefetchPositions[count++] = modulo(i, adapterCount);
+        }
+        if (count == 0) return;
+
+        final int first = mDataPrefetchPositions[0];
+        if (count == mLastDataPrefetchCount && first == mLastDataPrefetchFirst
+                && mFlipDirection == mLastDataPrefetchDirection) {
+            return;
+        }
+        mLastDataPrefetchCount = count;
+        mLastDataPrefetchFirst = first;
+        mLastDataPrefetchDirection = mFlipDirection;
+        ((PrefetchingAdapter) mAdapter).onPrefetch(mDataPrefetchPositions, count,
+                getFlipIntervalHint());
+    }
+
+    /**
+     * Lets {@link #dispatchDataPrefetch()} tell the adapter again, its data changed.
+     */
+    void resetDataPrefetch() {
+        mLastDataPrefetchCount = 0;
+    }
+
+    /**
+     * @return The time between two flips when the animator flips by itself, -1 otherwise.
+     */
+    long getFlipIntervalHint() {
+        return -1;
+    }
+
+    /**
+     * How {@link AdapterViewAnimator#remapWindow(WindowRemapper)} matches the entries of the
+     * window with the items of the changed adapter.
+     */
+    interface WindowRemapper {
+
+        /**
+         * @return The new position of the displayed item, {@link #INVALID_POSITION} if it is gone.
+         */
+        int getAnchorPosition(ViewAndMetaData current);
+
+        /**
+         * @return The key of the item of an entry of the window.
+         */
+        long getKey(ViewAndMetaData vm);
+
+        /**
+         * @return The key of the item at a new position, matched against {@link #getKey(ViewAndMetaData)}.
+         */
+        long getKeyAt(int position);
+
+        /**
+         * @return True if the view of an entry that kept its item must be bound again.
+         */
+        boolean needsRebind(int position);
+    }
+
+    /**
+     * Matches the entries by stable id, binding them again since their content is unknown.
+     */
+    final class ItemIdRemapper implements WindowRemapper {
+        @Override
+        public int getAnchorPosition(ViewAndMetaData current) {
+            return findItemPosition(current.itemId, current.adapterPosition);
+        }
+
+        @Override
+        public long getKey(ViewAndMetaData vm) {
+            return vm.itemId;
+        }
+
+        @Override
+        public long getKeyAt(int position) {
+            return mAdapter.getItemId(position);
+        }
+
+        @Override
+        public boolean needsRebind(int position) {
+            return true;
+        }
+    }
+
+    /**
+     * Matches the entries through the old positions of a {@link DiffingAdapter.DiffResult}.
+     */
+    static final class DiffResultRemapper implements WindowRemapper {
+        DiffingAdapter.DiffResult mResult;
+
+        @Override
+        public int getAnchorPosition(ViewAndMetaData current) {
+            if (current.adapterPosition < 0 || current.adapterPosition >= mResult.getOldSize()) {
+                return INVALID_POSITION;
+            }
+            return mResult.getNewPosition(current.adapterPosition);
+        }
+
+        @Override
+        public long getKey(ViewAndMetaData vm) {
+            return vm.adapterPosition;
+        }
+
+        @Override
+        public long getKeyAt(int position) {
+            return mResult.getOldPosition(position);
+        }
+
+        @Override
+        public boolean needsRebind(int position) {
+            return mResult.isChanged(position);
+        }
+    }
+
+    /**
+     * Rebuilds the window after a data change when the adapter has stable ids.
+     *
+     * @return False if the displayed item is gone, in which case the window is left as it is.
+     *
+     * @see #remapWindow(WindowRemapper)
+     */
+    boolean remapWindowByItemId() {
+        return remapWindow(mItemIdRemapper);
+    }
+
+    /**
+     * Applies the difference computed by a {@link DiffingAdapter} to the window.
+     *
+     * @return False if the displayed item is gone, in which case the window is left as it is.
+     *
+     * @see #remapWindow(WindowRemapper)
+     */
+    boolean remapWindowByDiff(DiffingAdapter.DiffResult result) {
+        mDiffResultRemapper.mResult = result;
+        try {
+            return remapWindow(mDiffResultRemapper);
+        } finally {
+            mDiffResultRemapper.mResult = null;
+        }
+    }
+
+    /**
+     * Rebuilds the window after a data change.
+     * <p>
+     * The displayed item stays displayed wherever it moved to, so that inserting or removing
+     * items before it does not make the animator jump. The entries whose item is still in the
+     * window keep their frame and view, which the adapter gets back as <code>convertView</code>
+     * if they need to be bound again, only the others are removed or created. Keys are matched
+     * through {@link #mItemKeyToIndex}, therefore the remap costs O(window) apart from finding
+     * the displayed item.
+     *
+     * @param remapper Matches the entries with the new items
+     * @return False if the displayed item is gone, in which case the window is left as it is.
+     */
+    boolean remapWindow(WindowRemapper remapper) {
+        final int adapterCount = getCount();
+        if (adapterCount == 0) return false;
+
+        removePreviousViews();
+        clearPrefetched();
+        resetDataPrefetch();
+
+        ViewAndMetaData current = null;
+        mItemKeyToIndex.clear();
+        final int span = mViewsMap.getSpan();
+        for (int i = 0; i < span; i++) {
+            final ViewAndMetaData vm = mViewsMap.getAt(i);
+            if (vm == null) continue;
+            vm.retained = false;
+            if (vm.relativeIndex == mActiveOffset) {
+                current = vm;
+            }
+            // Mirrors are not matched, showOnly creates them again where needed
+            if (vm.mirrored) continue;
+            mItemKeyToIndex.put(remapper.getKey(vm), i);
+        }
+        if (current == null) return false;
+
+        final int newPosition = remapper.getAnchorPosition(current);
+        if (newPosition < 0) return false;
+
+        // The window around the new position of the displayed item, as showOnly computes it
+        mWhichChild = newPosition;
+        final int windowSize = getWindowSize();
+        final int newWindowStartUnbounded = getWindowStartUnbounded(newPosition);
+        final long newWindowEndUnbounded = (long) newWindowStartUnbounded + getNumActiveViews() - 1;
+        int newWindowStart = Math.max(0, newWindowStartUnbounded);
+        int newWindowEnd = (int) Math.min(adapterCount - 1, newWindowEndUnbounded);
+        if (mLoopViews) {
+            newWindowStart = newWindowStartUnbounded;
+            newWindowEnd = (int) newWindowEndUnbounded;
+        }
+
+        final WindowStore<ViewAndMetaData> remapped = mRemappedViewsMap;
+        remapped.clear();
+        remapped.moveWindow(modulo(newWindowStart, windowSize), newWindowEnd - newWindowStart + 1,
+                windowSize);
+        for (long l = newWindowStart; l <= newWindowEnd; l++) {
+            final int i = (int) l;
+            final int adapterPosition = modulo(i, adapterCount);
+            final int found = mItemKeyToIndex.get(remapper.getKeyAt(adapterPosition), -1);
+            if (found < 0) continue;
+
+            final ViewAndMetaData vm = mViewsMap.getAt(found);
+            if (vm.retained) continue;
+
+            vm.retained = true;
+            if (remapper.needsRebind(adapterPosition)) {
+                rebindChild(vm, adapterPosition);
+            } else {
+                vm.adapterPosition = adapterPosition;
+                vm.itemId = mAdapter.getItemId(adapterPosition);
+            }
+            remapped.put(modulo(i, windowSize), vm);
+        }
+
+        // Whatever did not survive goes back to the scrap heap, before binding the new items
+        for (int i = 0; i < span; i++) {
+            final ViewAndMetaData vm = mViewsMap.getAt(i);
+            if (vm != null && !vm.retained) {
+                removeWindowEntry(vm);
             }
         }
+        mViewsMap.clear();
+        mRemappedViewsMap = mViewsMap;
+        mViewsMap = remapped;
 
-        if (widthSpecMode == MeasureSpec.UNSPECIFIED) {
-            widthSpecSize = haveChildRefSize ? mReferenceChildWidth + getPaddingLeft() +
-                    getPaddingRight() : 0;
-        } else if (heightSpecMode == MeasureSpec.AT_MOST) {
-            if (haveChildRefSize) {
-                int width = mReferenceChildWidth + getPaddingLeft() + getPaddingRight();
-                if (width > widthSpecSize) {
-                    widthSpecSize |= MEASURED_STATE_TOO_SMALL;
-                } else {
-                    widthSpecSize = width;
-                }
+        // Force showOnly to walk the new window and fill the holes
+        mCurrentWindowStart = 0;
+        mCurrentWindowEnd = -1;
+        showOnly(mWhichChild, false);
+        return true;
+    }
+
+    /**
+     * Looks for an item id in the adapter, starting from where it was and moving alternatively
+     * downwards and upwards.
+     *
+     * @param itemId The id to look for
+     * @param seed The position where the search starts
+     * @return The position of the item, or {@link #INVALID_POSITION} if it is gone.
+     */
+    int findItemPosition(long itemId, int seed) {
+        final int count = getCount();
+        if (count == 0 || itemId == INVALID_ROW_ID) return INVALID_POSITION;
+
+        seed = Math.min(count - 1, Math.max(0, seed));
+        for (int distance = 0; distance < count; distance++) {
+            final int after = seed + distance;
+            final int before = seed - distance;
+            if (after >= count && before < 0) {
+                break;
+            }
+            if (after < count && mAdapter.getItemId(after) == itemId) {
+                return after;
+            }
+            if (distance > 0 && before >= 0 && mAdapter.getItemId(before) == itemId) {
+                return before;
             }
         }
+        return INVALID_POSITION;
+    }
 
-        setMeasuredDimension(widthSpecSize, heightSpecSize);
-        measureChildren();
+    /**
+     * Called by the {@link AdapterDataSetObserver} for every notification.
+     *
+     * @return True if this is the first notification since the last data change pass.
+     */
+    boolean onDataSetNotification() {
+        if (mPendingDataChangeCount++ > 0) {
+            mCoalescedDataChangeCount++;
+            return false;
+        }
+        return true;
     }
 
     void checkForAndHandleDataChanged() {
         boolean dataChanged = mAdapterViewRefl.getDataChanged();
-        if (dataChanged) {
-            post(new Runnable() {
-                @Override
-                public void run() {
-                    mAdapterViewRefl.handleDataChanged();
-                    // if the data changes, mWhichChild might be out of the bounds of the adapter
-                    // in this case, we reset mWhichChild to the beginning
-                    if (mWhichChild >= getWindowSize()) {
-                        mWhichChild = 0;
-
-                        showOnly(mWhichChild, false);
-                    } else if (mAdapterViewRefl.getOldItemCount() != getCount()) {
-                        showOnly(mWhichChild, false);
-                    }
-                    refreshChildren();
-                    requestLayout();
-                }
-            });
+        if (dataChanged && !mDataChangedPending) {
+            mDataChangedPending = true;
+            post(mHandleDataChanged);
         }
         mAdapterViewRefl.setDataChanged(false);
     }
@@ -890,13 +2561,17 @@ public abstract class AdapterViewAnimator extends AdapterView<Adapter> implement
     /**
      * Specifies the animation used to animate a View that enters the screen.
      *
-     * @param inAnimation The animation started when a View enters the screen.
+     * @param inAnimation The animation started when a View enters the screen. Each View runs
+     *        a clone of it, the animation itself is never started. Changes to its duration,
+     *        start delay or interpolator apply to the next transitions, any other change
+     *        needs the animation to be set again.
      *
      * @see #getInAnimation()
      * @see #setInAnimation(android.content.Context, int)
      */
     public void setInAnimation(Animator inAnimation) {
         mInAnimation = inAnimation;
+        mAnimators.clearPool();
     }
 
     /**
@@ -914,17 +2589,139 @@ public abstract class AdapterViewAnimator extends AdapterView<Adapter> implement
     /**
      * Specifies the animation used to animate a View that exit the screen.
      *
-     * @param outAnimation The animation started when a View exit the screen.
+     * @param outAnimation The animation started when a View exit the screen. Each View runs
+     *        a clone of it, the animation itself is never started. Changes to its duration,
+     *        start delay or interpolator apply to the next transitions, any other change
+     *        needs the animation to be set again.
      *
      * @see #getOutAnimation()
      * @see #setOutAnimation(android.content.Context, int)
      */
     public void setOutAnimation(Animator outAnimation) {
         mOutAnimation = outAnimation;
+        mAnimators.clearPool();
+    }
+
+    /**
+     * Specifies whether the Views staying on screen but moving to another place of the window
+     * are animated, false by default. This matters for subclasses showing more than one View,
+     * whose transform depends on the place in the window.
+     * <p>
+     * The moves of a transition run on a single animator, started together with the in and out
+     * animations of the same transition.
+     *
+     * @param animateMoves True to animate the moves.
+     */
+    public void setAnimateMoves(boolean animateMoves) {
+        mAnimateMoves = animateMoves;
+        if (!animateMoves) {
+            mMoves.end();
+        }
+    }
+
+    /**
+     * @return True if the Views moving to another place of the window are animated.
+     * @see #setAnimateMoves(boolean)
+     */
+    public boolean isAnimateMoves() {
+        return mAnimateMoves;
+    }
+
+    /**
+     * @param duration The duration of the moves in milliseconds.
+     * @see #setAnimateMoves(boolean)
+     */
+    public void setMoveDuration(long duration) {
+        mMoves.setDuration(duration);
+    }
+
+    public long getMoveDuration() {
+        return mMoves.getDuration();
+    }
+
+    /**
+     * Specifies whether the Views entering and exiting the screen are drawn from a snapshot
+     * during their transition, false by default.
+     * <p>
+     * When enabled, each View starting its in or out transition is drawn once into a bitmap,
+     * then every frame of the transition only draws the bitmap, whatever the complexity of the
+     * View. The View is drawn live again as soon as its transition ends. Bitmaps are reused
+     * from one transition to the next, so that only the first transitions allocate them.
+     * <p>
+     * This pays off before Honeycomb, where every frame of a transition redraws the whole
+     * hierarchy of the animated Views, as long as their content does not change during the
+     * transition: changes only show up once it is over. The Views need to be wrapped in the
+     * default frames, subclasses providing their own frames or not wrapping the Views are not
+     * affected.
+     *
+     * @param snapshotTransitions True to draw the transitions from snapshots.
+     */
+    public void setSnapshotTransitions(boolean snapshotTransitions) {
+        mSnapshotTransitions = snapshotTransitions;
+        if (!snapshotTransitions) {
+            for (int i = 0; i < getChildCount(); i++) {
+                clearSnapshot(getChildAt(i));
+            }
+            mSnapshotPool.clear();
+        }
+    }
+
+    /**
+     * @return True if the transitions are drawn from snapshots.
+     * @see #setSnapshotTransitions(boolean)
+     */
+    public boolean isSnapshotTransitions() {
+        return mSnapshotTransitions;
+    }
+
+    /**
+     * @return The transition of the Views entering the screen, null if the in animation is used.
+     * @see #setInTransition(FrameTransition)
+     */
+    public FrameTransition getInTransition() {
+        return mInTransition;
+    }
+
+    /**
+     * Specifies a transition run by the animator itself for the Views entering the screen,
+     * instead of the {@link #getInAnimation() in animation}. Frame transitions only cover
+     * alpha, translation and scale, but are much cheaper than animators before Honeycomb.
+     *
+     * @param inTransition The transition, null to go back to the in animation.
+     */
+    public void setInTransition(FrameTransition inTransition) {
+        mInTransition = inTransition;
+        if (inTransition != null) {
+            setStaticTransformationsEnabled(true);
+        }
+    }
+
+    /**
+     * @return The transition of the Views exiting the screen, null if the out animation is used.
+     * @see #setOutTransition(FrameTransition)
+     */
+    public FrameTransition getOutTransition() {
+        return mOutTransition;
+    }
+
+    /**
+     * Specifies a transition run by the animator itself for the Views exiting the screen,
+     * instead of the {@link #getOutAnimation() out animation}. See
+     * {@link #setInTransition(FrameTransition)}.
+     *
+     * @param outTransition The transition, null to go back to the out animation.
+     */
+    public void setOutTransition(FrameTransition outTransition) {
+        mOutTransition = outTransition;
+        if (outTransition != null) {
+            setStaticTransformationsEnabled(true);
+        }
     }
 
     /**
      * Specifies the animation used to animate a View that enters the screen.
+     * <p>
+     * The resource is parsed once per process, later calls get a copy of the same animation.
      *
      * @param context The application's environment.
      * @param resourceID The resource id of the animation.
@@ -933,11 +2730,13 @@ public abstract class AdapterViewAnimator extends AdapterView<Adapter> implement
      * @see #setInAnimation(android.animation.ObjectAnimator)
      */
     public void setInAnimation(Context context, int resourceID) {
-        setInAnimation(AnimatorInflater.loadAnimator(context, resourceID));
+        setInAnimation(AnimatorTemplateCache.loadAnimator(context, resourceID));
     }
 
     /**
      * Specifies the animation used to animate a View that exit the screen.
+     * <p>
+     * The resource is parsed once per process, later calls get a copy of the same animation.
      *
      * @param context The application's environment.
      * @param resourceID The resource id of the animation.
@@ -946,7 +2745,202 @@ public abstract class AdapterViewAnimator extends AdapterView<Adapter> implement
      * @see #setOutAnimation(android.animation.ObjectAnimator)
      */
     public void setOutAnimation(Context context, int resourceID) {
-        setOutAnimation(AnimatorInflater.loadAnimator(context, resourceID));
+        setOutAnimation(AnimatorTemplateCache.loadAnimator(context, resourceID));
+    }
+
+    /**
+     * Specifies whether the views returned by the adapter are wrapped in a {@link FrameLayout}
+     * before being added, which is the default.
+     * <p>
+     * The frame respects the contract with the adapter, that is, the animations never modify the
+     * adapter views directly. Adapters whose views can be animated and whose properties
+     * (alpha, translation, scale...) are not relied upon can do without it: the adapter
+     * views are then attached directly, which halves the number of children to measure and
+     * lay out and saves a frame per flip.
+     * <p>
+     * Changing it rebuilds the current window.
+     *
+     * @param wrap True to wrap the adapter views in a frame, false to attach them directly.
+     */
+    public void setWrapAdapterViews(boolean wrap) {
+        if (mWrapAdapterViews == wrap) {
+            return;
+        }
+        mWrapAdapterViews = wrap;
+        clearPrefetched();
+        // Each entry knows whether it was wrapped, the views and frames go back to the scrap heap
+        removeAllWindowEntries();
+        mCurrentWindowStart = 0;
+        mCurrentWindowEnd = -1;
+        showOnly(mWhichChild, false);
+    }
+
+    /**
+     * Specifies whether the indexes of the window showing the same adapter position share its
+     * view, false by default.
+     * <p>
+     * This only matters when the animator loops over fewer items than it keeps in its window,
+     * for example a carousel of three items showing five views: every item would otherwise be
+     * inflated and bound for each index it shows up at. When sharing, only the first index gets
+     * a view from the adapter, the others get a mirror drawing it, in a frame of their own that
+     * is transformed and animated like any other.
+     * <p>
+     * Sharing requires the adapter views to be wrapped, see {@link #setWrapAdapterViews(boolean)}.
+     * Changing it rebuilds the current window.
+     *
+     * @param share True to share the views of the duplicated items.
+     */
+    public void setShareDuplicateViews(boolean share) {
+        if (mShareDuplicateViews == share) {
+            return;
+        }
+        mShareDuplicateViews = share;
+        clearPrefetched();
+        removeAllWindowEntries();
+        mCurrentWindowStart = 0;
+        mCurrentWindowEnd = -1;
+        showOnly(mWhichChild, false);
+    }
+
+    /**
+     * @return True if the indexes of the window showing the same adapter position share its view.
+     * @see #setShareDuplicateViews(boolean)
+     */
+    public boolean isShareDuplicateViews() {
+        return mShareDuplicateViews;
+    }
+
+    /**
+     * Lets {@link #showOnly(int, boolean)} attach only the current child, materializing the
+     * rest of the window over the following frames, closest to the current child first.
+     * Getting, wrapping and measuring the views of a large window, typically after
+     * {@link #setAdapter(Adapter)}, then does not make the first frame or a flip miss its deadline.
+     * <p>
+     * The budget is the time that can be spent materializing children in a frame. At least
+     * one child is materialized per frame whatever the budget.
+     *
+     * @param millis The budget in milliseconds, 0 (the default) to materialize the whole
+     *        window at once.
+     */
+    public void setMaterializationBudget(int millis) {
+        if (millis < 0) {
+            throw new IllegalArgumentException("Can't have a negative budget");
+        }
+        mMaterializationBudget = millis;
+    }
+
+    /**
+     * @return The time in milliseconds that can be spent materializing the window in a frame,
+     *         0 if it is materialized at once.
+     *
+     * @see #setMaterializationBudget(int)
+     */
+    public int getMaterializationBudget() {
+        return mMaterializationBudget;
+    }
+
+    /**
+     * Sets the number of items after the current window whose view is prepared in advance.
+     * The views are obtained from the adapter, wrapped and measured while the main thread is
+     * idle, without being attached, so that a flip only has to attach a ready view and start
+     * the animations.
+     *
+     * @param limit The number of items to prepare, 0 (the default) to disable prefetching.
+     *
+     * @see #setOffscreenPageLimit(int, boolean)
+     */
+    public void setOffscreenPageLimit(int limit) {
+        setOffscreenPageLimit(limit, false);
+    }
+
+    /**
+     * Sets the number of items around the current window whose view is prepared in advance,
+     * see {@link #setOffscreenPageLimit(int)}.
+     *
+     * @param limit The number of items to prepare on each side, 0 to disable prefetching.
+     * @param includePrevious True to also prepare the items before the window, for
+     *        animators that go back as often as forward.
+     */
+    public void setOffscreenPageLimit(int limit, boolean includePrevious) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Can't have a negative offscreen page limit");
+        }
+        mOffscreenPageLimit = limit;
+        mPrefetchPrevious = includePrevious;
+        if (limit == 0) {
+            clearPrefetched();
+        } else {
+            schedulePrefetch();
+        }
+    }
+
+    /**
+     * @return The number of items on each side of the window whose view is prepared in advance.
+     *
+     * @see #setOffscreenPageLimit(int, boolean)
+     */
+    public int getOffscreenPageLimit() {
+        return mOffscreenPageLimit;
+    }
+
+    /**
+     * Sets how many upcoming positions are given to an adapter implementing
+     * {@link PrefetchingAdapter}, counting from the edge of the window in the direction
+     * of the last flip.
+     *
+     * @param distance The number of positions, 0 not to call the adapter at all.
+     */
+    public void setDataPrefetchDistance(int distance) {
+        if (distance < 0) {
+            throw new IllegalArgumentException("Can't have a negative prefetch distance");
+        }
+        mDataPrefetchDistance = distance;
+        resetDataPrefetch();
+        dispatchDataPrefetch();
+    }
+
+    /**
+     * @return The number of upcoming positions given to a {@link PrefetchingAdapter}.
+     *
+     * @see #setDataPrefetchDistance(int)
+     */
+    public int getDataPrefetchDistance() {
+        return mDataPrefetchDistance;
+    }
+
+    /**
+     * Specifies whether {@link #showNext()} and {@link #showPrevious()} calls are coalesced.
+     * <p>
+     * When they are, the calls arriving within the same frame, or while the in or out
+     * animation is running, only move a target position: a single transition then goes from
+     * the displayed child straight to the target. The positions in between are never obtained
+     * from the adapter, which spares the work when the user keeps pressing "next" or when
+     * {@link #advance()} is called repeatedly. {@link #getDisplayedChild()} keeps returning
+     * the displayed child until the transition happens, and
+     * {@link #setDisplayedChild(int)} drops the pending flips.
+     *
+     * @param coalesce True to coalesce the flips, false (the default) to show each of them.
+     */
+    public void setCoalesceFlips(boolean coalesce) {
+        mCoalesceFlips = coalesce;
+    }
+
+    /**
+     * @return True if {@link #showNext()} and {@link #showPrevious()} calls are coalesced.
+     *
+     * @see #setCoalesceFlips(boolean)
+     */
+    public boolean isCoalesceFlips() {
+        return mCoalesceFlips;
+    }
+
+    /**
+     * @return True if the adapter views are wrapped in a frame.
+     *
+     * @see #setWrapAdapterViews(boolean)
+     */
+    public boolean isWrapAdapterViews() {
+        return mWrapAdapterViews;
     }
 
     /**
@@ -976,10 +2970,18 @@ public abstract class AdapterViewAnimator extends AdapterView<Adapter> implement
             mAdapter.unregisterDataSetObserver(mDataSetObserver);
         }
 
+        clearPrefetched();
+        resetDataPrefetch();
+        if (mFlipPending) {
+            mFlipPending = false;
+            removeCallbacks(mFlushFlips);
+        }
         mAdapter = adapter;
         mAdapterViewRefl.checkFocus();
+        mRecycler.clear();
 
         if (mAdapter != null) {
+            mRecycler.setViewTypeCount(mAdapter.getViewTypeCount());
             mDataSetObserver = new AdapterDataSetObserver();
             mAdapter.registerDataSetObserver(mDataSetObserver);
             mAdapterViewRefl.setItemCount(mAdapter.getCount());
@@ -989,6 +2991,47 @@ public abstract class AdapterViewAnimator extends AdapterView<Adapter> implement
         showOnly(mWhichChild, false);
     }
 
+    /**
+     * The item count is kept by the {@link AdapterViewBridge}.
+     */
+    @Override
+    public int getCount() {
+        return mAdapterViewRefl.getItemCount();
+    }
+
+    @Override
+    public int getSelectedItemPosition() {
+        return mAdapterViewRefl.getNextSelectedPosition();
+    }
+
+    @Override
+    public long getSelectedItemId() {
+        return mAdapterViewRefl.getNextSelectedRowId();
+    }
+
+    @Override
+    protected boolean canAnimate() {
+        return getLayoutAnimation() != null && getCount() > 0;
+    }
+
+    @Override
+    public void setFocusable(boolean focusable) {
+        mDesiredFocusableState = focusable;
+        if (!focusable) {
+            mDesiredFocusableInTouchModeState = false;
+        }
+        super.setFocusable(focusable);
+    }
+
+    @Override
+    public void setFocusableInTouchMode(boolean focusable) {
+        mDesiredFocusableInTouchModeState = focusable;
+        if (focusable) {
+            mDesiredFocusableState = true;
+        }
+        super.setFocusableInTouchMode(focusable);
+    }
+
     @Override
     public void setSelection(int position) {
         setDisplayedChild(position);
@@ -999,6 +3042,89 @@ public abstract class AdapterViewAnimator extends AdapterView<Adapter> implement
         return getViewAtRelativeIndex(mActiveOffset);
     }
 
+    /**
+     * Returns how many times the adapter reused the scrap view it was given as
+     * <code>convertView</code> when a new item entered the window.
+     *
+     * @return The number of recycled views.
+     *
+     * @see #getCreatedViewCount()
+     */
+    public int getRecycledViewCount() {
+        return mRecycler.getReusedCount();
+    }
+
+    /**
+     * Returns how many times the adapter had to return a new view when an item
+     * entered the window, because there was no suitable scrap view or because
+     * the adapter did not use it.
+     *
+     * @return The number of created views.
+     *
+     * @see #getRecycledViewCount()
+     */
+    public int getCreatedViewCount() {
+        return mRecycler.getCreatedCount();
+    }
+
+    /**
+     * Makes this animator take and give back its scrap item views and frames from a pool
+     * shared with other animators, so that a view dropped by one of them can be reused
+     * by the next <code>getView</code> of another.
+     *
+     * @param pool The pool to use, null to go back to the private scrap heap.
+     *
+     * @see SharedViewPool
+     */
+    public void setSharedViewPool(SharedViewPool pool) {
+        if (mRecycler.getSharedPool() == pool) {
+            return;
+        }
+        unregisterFromSharedPool();
+        mRecycler.setSharedPool(pool);
+        if (getWindowToken() != null) {
+            registerWithSharedPool();
+        }
+    }
+
+    /**
+     * Counts this animator among the users of its shared pool, if any. Only attached animators
+     * are registered, so that a discarded animator does not keep the pool from being released.
+     */
+    private void registerWithSharedPool() {
+        final SharedViewPool pool = mRecycler.getSharedPool();
+        if (pool != null && !mRegisteredWithSharedPool) {
+            pool.register();
+            mRegisteredWithSharedPool = true;
+        }
+    }
+
+    private void unregisterFromSharedPool() {
+        final SharedViewPool pool = mRecycler.getSharedPool();
+        if (pool != null && mRegisteredWithSharedPool) {
+            pool.unregister();
+            mRegisteredWithSharedPool = false;
+        }
+    }
+
+    /**
+     * @return The pool shared with other animators, null if none has been set.
+     */
+    public SharedViewPool getSharedViewPool() {
+        return mRecycler.getSharedPool();
+    }
+
+    /**
+     * Returns how many adapter notifications ({@link DataSetObserver#onChanged()} and
+     * {@link DataSetObserver#onInvalidated()}) have been merged into a single refresh of
+     * the children together with a previous one, instead of causing a refresh of their own.
+     *
+     * @return The number of coalesced notifications.
+     */
+    public int getCoalescedDataChangeCount() {
+        return mCoalescedDataChangeCount;
+    }
+
     /**
      * This defers a notifyDataSetChanged on the pending RemoteViewsAdapter if it has not
      * connected yet.
@@ -1036,14 +3162,18 @@ public abstract class AdapterViewAnimator extends AdapterView<Adapter> implement
     public static final int ACTION_POINTER_UP = 6;
     
     // from android.widget.AdapterView<T>
-    class AdapterDataSetObserver extends DataSetObserver {
+    class AdapterDataSetObserver extends DataSetObserver implements DiffingAdapter.ItemUpdateObserver {
 
         private Parcelable mInstanceState = null;
 
         @Override
         public void onChanged() {
+            // The old state is the one before the first notification the pending pass will handle
+            final boolean first = onDataSetNotification();
             mAdapterViewRefl.setDataChanged(true);
-            mAdapterViewRefl.setOldItemCount(getCount());
+            if (first) {
+                mAdapterViewRefl.setOldItemCount(getCount());
+            }
             mAdapterViewRefl.setItemCount(getAdapter().getCount());
             
             // Detect the case where a cursor that was previously invalidated has
@@ -1053,7 +3183,7 @@ public abstract class AdapterViewAnimator extends AdapterView<Adapter> implement
                     getCount() > 0) {
                 onRestoreInstanceState(mInstanceState);
                 mInstanceState = null;
-            } else {
+            } else if (first) {
                 mAdapterViewRefl.rememberSyncState();
             }
             mAdapterViewRefl.checkFocus();
@@ -1062,6 +3192,7 @@ public abstract class AdapterViewAnimator extends AdapterView<Adapter> implement
 
         @Override
         public void onInvalidated() {
+            final boolean first = onDataSetNotification();
             mAdapterViewRefl.setDataChanged(true);
 
             if (getAdapter().hasStableIds()) {
@@ -1071,7 +3202,9 @@ public abstract class AdapterViewAnimator extends AdapterView<Adapter> implement
             }
 
             // Data is invalid so we should reset our state
-            mAdapterViewRefl.setOldItemCount(getCount());
+            if (first) {
+                mAdapterViewRefl.setOldItemCount(getCount());
+            }
             mAdapterViewRefl.setItemCount(0);
             mAdapterViewRefl.setSelectedPosition(INVALID_POSITION);
             mAdapterViewRefl.setSelectedRowId(INVALID_ROW_ID);
@@ -1083,6 +3216,28 @@ public abstract class AdapterViewAnimator extends AdapterView<Adapter> implement
             requestLayout();
         }
 
+        /**
+         * Applies the difference to the window right away, falling back to a regular
+         * data change pass if the displayed item is gone or one is already pending.
+         */
+        @Override
+        public void onItemUpdates(DiffingAdapter.DiffResult result) {
+            final int oldItemCount = getCount();
+            if (!mDataChangedPending && oldItemCount > 0) {
+                mAdapterViewRefl.setItemCount(getAdapter().getCount());
+                if (remapWindowByDiff(result)) {
+                    mAdapterViewRefl.setOldItemCount(oldItemCount);
+                    mAdapterViewRefl.setNextSelectedPosition(mWhichChild);
+                    mAdapterViewRefl.setNextSelectedRowId(getAdapter().getItemId(mWhichChild));
+                    mAdapterViewRefl.checkFocus();
+                    requestLayout();
+                    return;
+                }
+                mAdapterViewRefl.setItemCount(oldItemCount);
+            }
+            onChanged();
+        }
+
         public void clearSavedState() {
             mInstanceState = null;
         }
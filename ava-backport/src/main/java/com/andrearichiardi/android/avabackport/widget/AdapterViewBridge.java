@@ -12,7 +12,8 @@ interface AdapterViewBridge {
 
     void setOldItemCount(int count);
     
-    // Setter only because getCount() on the parent is accessible
+    int getItemCount();
+
     void setItemCount(int count);
     
     int getSelectedPosition();
@@ -20,9 +21,11 @@ interface AdapterViewBridge {
     void setSelectedPosition(int position);
     
     /**
-     * Setter only because AdapterView.getSelectedItemPosition() returns this the mNextSelectedPosition field.
+     * AdapterView.getSelectedItemPosition() returns this the mNextSelectedPosition field.
      * @see "https://android.googlesource.com/platform/frameworks/base/+/android-1.6_r1/core/java/android/widget/AdapterView.java" 
      */
+    int getNextSelectedPosition();
+
     void setNextSelectedPosition(int position);
     
     long getSelectedRowId();
@@ -30,9 +33,11 @@ interface AdapterViewBridge {
     void setSelectedRowId(long id);
     
     /**
-     * Setter only because AdapterView.getSelectedItemId() returns this the mNextSelectedRowId field.
+     * AdapterView.getSelectedItemId() returns this the mNextSelectedRowId field.
      * @see "https://android.googlesource.com/platform/frameworks/base/+/android-1.6_r1/core/java/android/widget/AdapterView.java" 
      */
+    long getNextSelectedRowId();
+
     void setNextSelectedRowId(long id);
     
     boolean getNeedSync();
@@ -15,55 +15,97 @@ import android.widget.AdapterView;
 class AdapterViewBridgeImpl1 implements AdapterViewBridge {
 
     protected final AdapterView<?> mInstance;
-    private final Class<AdapterView> mClazz;
     
-    protected Field mDataChanged;
-    protected Method mCheckFocus;
-    protected Field mItemCount; // Setter only because getCount() on the parent is accessible
-    protected Field mOldItemCount;
-    private Field mSelectedPosition;
-    private Field mSelectedRowId;
-    private Field mNextSelectedPosition;
-    private Field mNextSelectedRowId;
-    private Field mNeedSync;
-    private Method mRememberSyncState;
-    private Method mHandleDataChanged;
+    protected final Field mDataChanged;
+    protected final Method mCheckFocus;
+    protected final Field mItemCount;
+    protected final Field mOldItemCount;
+    private final Field mSelectedPosition;
+    private final Field mSelectedRowId;
+    private final Field mNextSelectedPosition;
+    private final Field mNextSelectedRowId;
+    private final Field mNeedSync;
+    private final Method mRememberSyncState;
+    private final Method mHandleDataChanged;
     
     AdapterViewBridgeImpl1(AdapterView<?> instance) {
-        mClazz = AdapterView.class;
         mInstance = instance;
         
-        // Fields
-        try {
-            mDataChanged = mClazz.getDeclaredField("mDataChanged");
-            mDataChanged.setAccessible(true);
-            mCheckFocus = mClazz.getDeclaredMethod("checkFocus");
-            mCheckFocus.setAccessible(true);
-            mItemCount = mClazz.getDeclaredField("mItemCount");
-            mItemCount.setAccessible(true);
-            mOldItemCount = mClazz.getDeclaredField("mOldItemCount");
-            mOldItemCount.setAccessible(true);
-            mSelectedPosition = mClazz.getDeclaredField("mSelectedPosition");
-            mSelectedPosition.setAccessible(true);
-            mSelectedRowId = mClazz.getDeclaredField("mSelectedRowId");
-            mSelectedRowId.setAccessible(true);
-            mNextSelectedPosition = mClazz.getDeclaredField("mNextSelectedPosition");
-            mNextSelectedPosition.setAccessible(true);
-            mNextSelectedRowId = mClazz.getDeclaredField("mNextSelectedRowId");
-            mNextSelectedRowId.setAccessible(true);
-            mNeedSync = mClazz.getDeclaredField("mNeedSync");
-            mNeedSync.setAccessible(true);
-            mRememberSyncState = mClazz.getDeclaredMethod("rememberSyncState");
-            mRememberSyncState.setAccessible(true);
-            mHandleDataChanged = mClazz.getDeclaredMethod("handleDataChanged");
-            mHandleDataChanged.setAccessible(true);
-            
-        } catch (SecurityException e) {
-            throw new RuntimeException(e);
-        } catch (NoSuchFieldException e) {
-            throw new RuntimeException(e);
-        } catch (NoSuchMethodException e) {
-            throw new RuntimeException(e);
+        final Members members = Members.get();
+        mDataChanged = members.dataChanged;
+        mCheckFocus = members.checkFocus;
+        mItemCount = members.itemCount;
+        mOldItemCount = members.oldItemCount;
+        mSelectedPosition = members.selectedPosition;
+        mSelectedRowId = members.selectedRowId;
+        mNextSelectedPosition = members.nextSelectedPosition;
+        mNextSelectedRowId = members.nextSelectedRowId;
+        mNeedSync = members.needSync;
+        mRememberSyncState = members.rememberSyncState;
+        mHandleDataChanged = members.handleDataChanged;
+    }
+    
+    /**
+     * The AdapterView members, looked up and made accessible once per process
+     * and then shared by all the bridges.
+     */
+    static final class Members {
+        
+        private static Members sInstance;
+        
+        final Field dataChanged;
+        final Method checkFocus;
+        final Field itemCount;
+        final Field oldItemCount;
+        final Field selectedPosition;
+        final Field selectedRowId;
+        final Field nextSelectedPosition;
+        final Field nextSelectedRowId;
+        final Field needSync;
+        final Method rememberSyncState;
+        final Method handleDataChanged;
+        
+        static synchronized Members get() {
+            if (sInstance == null) {
+                sInstance = new Members(AdapterView.class);
+            }
+            return sInstance;
+        }
+        
+        @SuppressWarnings("rawtypes")
+        private Members(Class<AdapterView> clazz) {
+            try {
+                dataChanged = accessibleField(clazz, "mDataChanged");
+                checkFocus = accessibleMethod(clazz, "checkFocus");
+                itemCount = accessibleField(clazz, "mItemCount");
+                oldItemCount = accessibleField(clazz, "mOldItemCount");
+                selectedPosition = accessibleField(clazz, "mSelectedPosition");
+                selectedRowId = accessibleField(clazz, "mSelectedRowId");
+                nextSelectedPosition = accessibleField(clazz, "mNextSelectedPosition");
+                nextSelectedRowId = accessibleField(clazz, "mNextSelectedRowId");
+                needSync = accessibleField(clazz, "mNeedSync");
+                rememberSyncState = accessibleMethod(clazz, "rememberSyncState");
+                handleDataChanged = accessibleMethod(clazz, "handleDataChanged");
+                
+            } catch (SecurityException e) {
+                throw new RuntimeException(e);
+            } catch (NoSuchFieldException e) {
+                throw new RuntimeException(e);
+            } catch (NoSuchMethodException e) {
+                throw new RuntimeException(e);
+            }
+        }
+        
+        private static Field accessibleField(Class<?> clazz, String name) throws NoSuchFieldException {
+            final Field field = clazz.getDeclaredField(name);
+            field.setAccessible(true);
+            return field;
+        }
+        
+        private static Method accessibleMethod(Class<?> clazz, String name) throws NoSuchMethodException {
+            final Method method = clazz.getDeclaredMethod(name);
+            method.setAccessible(true);
+            return method;
         }
     }
     
@@ -83,7 +125,7 @@ class AdapterViewBridgeImpl1 implements AdapterViewBridge {
     @Override
     public void setDataChanged(boolean dataChanged) {
         try {
-            mDataChanged.set(mInstance, dataChanged);
+            mDataChanged.setBoolean(mInstance, dataChanged);
         } catch (IllegalArgumentException e) {
             throw new RuntimeException(e);
         } catch (IllegalAccessException e) {
@@ -106,7 +148,18 @@ class AdapterViewBridgeImpl1 implements AdapterViewBridge {
     @Override
     public void setOldItemCount(int count) {
         try {
-            mOldItemCount.set(mInstance, count);
+            mOldItemCount.setInt(mInstance, count);
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException(e);
+        } catch (IllegalAccessException e) {
+            throw new RuntimeException(e);
+        }
+    }
+    
+    @Override
+    public int getItemCount() {
+        try {
+            return mItemCount.getInt(mInstance);
         } catch (IllegalArgumentException e) {
             throw new RuntimeException(e);
         } catch (IllegalAccessException e) {
@@ -114,11 +167,10 @@ class AdapterViewBridgeImpl1 implements AdapterViewBridge {
         }
     }
     
-    // Setter only because getCount() on the parent is accessible
     @Override
     public void setItemCount(int count) {
         try {
-            mItemCount.set(mInstance, count);
+            mItemCount.setInt(mInstance, count);
         } catch (IllegalArgumentException e) {
             throw new RuntimeException(e);
         } catch (IllegalAccessException e) {
@@ -141,7 +193,7 @@ class AdapterViewBridgeImpl1 implements AdapterViewBridge {
     @Override
     public void setSelectedPosition(int position) {
         try {
-            mSelectedPosition.set(mInstance, position);
+            mSelectedPosition.setInt(mInstance, position);
         } catch (IllegalArgumentException e) {
             throw new RuntimeException(e);
         } catch (IllegalAccessException e) {
@@ -150,13 +202,24 @@ class AdapterViewBridgeImpl1 implements AdapterViewBridge {
     }
     
     /**
-     * Setter only because AdapterView.getSelectedItemPosition() returns this the mNextSelectedPosition field.
+     * AdapterView.getSelectedItemPosition() returns this the mNextSelectedPosition field.
      * @see "https://android.googlesource.com/platform/frameworks/base/+/android-1.6_r1/core/java/android/widget/AdapterView.java" 
      */
+    @Override
+    public int getNextSelectedPosition() {
+        try {
+            return mNextSelectedPosition.getInt(mInstance);
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException(e);
+        } catch (IllegalAccessException e) {
+            throw new RuntimeException(e);
+        }
+    }
+    
     @Override
     public void setNextSelectedPosition(int position) {
         try {
-            mNextSelectedPosition.set(mInstance, position);
+            mNextSelectedPosition.setInt(mInstance, position);
         } catch (IllegalArgumentException e) {
             throw new RuntimeException(e);
         } catch (IllegalAccessException e) {
@@ -179,7 +242,7 @@ class AdapterViewBridgeImpl1 implements AdapterViewBridge {
     @Override
     public void setSelectedRowId(long id) {
         try {
-            mSelectedRowId.set(mInstance, id);
+            mSelectedRowId.setLong(mInstance, id);
         } catch (IllegalArgumentException e) {
             throw new RuntimeException(e);
         } catch (IllegalAccessException e) {
@@ -188,13 +251,24 @@ class AdapterViewBridgeImpl1 implements AdapterViewBridge {
     }
     
     /**
-     * Setter only because AdapterView.getSelectedItemId() returns this the mNextSelectedRowId field.
+     * AdapterView.getSelectedItemId() returns this the mNextSelectedRowId field.
      * @see "https://android.googlesource.com/platform/frameworks/base/+/android-1.6_r1/core/java/android/widget/AdapterView.java" 
      */
+    @Override
+    public long getNextSelectedRowId() {
+        try {
+            return mNextSelectedRowId.getLong(mInstance);
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException(e);
+        } catch (IllegalAccessException e) {
+            throw new RuntimeException(e);
+        }
+    }
+    
     @Override
     public void setNextSelectedRowId(long id) {
         try {
-            mNextSelectedRowId.set(mInstance, id);
+            mNextSelectedRowId.setLong(mInstance, id);
         } catch (IllegalArgumentException e) {
             throw new RuntimeException(e);
         } catch (IllegalAccessException e) {
@@ -216,7 +290,7 @@ class AdapterViewBridgeImpl1 implements AdapterViewBridge {
     @Override
     public void setNeedSync(boolean needSync) {
         try {
-            mNeedSync.set(mInstance, needSync);
+            mNeedSync.setBoolean(mInstance, needSync);
         } catch (IllegalArgumentException e) {
             throw new RuntimeException(e);
         } catch (IllegalAccessException e) {
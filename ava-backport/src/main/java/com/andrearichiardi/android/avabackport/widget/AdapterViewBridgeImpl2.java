@@ -0,0 +1,333 @@
+package com.andrearichiardi.android.avabackport.widget;
+
+import android.os.SystemClock;
+import android.view.View;
+import android.widget.Adapter;
+import android.widget.AdapterView;
+
+/**
+ * This Bridge keeps the AdapterView state as plain fields, reimplementing the logic
+ * of AdapterView that the {@link AdapterViewAnimator} needs. No reflection is involved.
+ * <p>
+ * The {@link AdapterViewAnimator} reads back the item count and the next selected position
+ * and row id through the bridge, see {@link AdapterViewAnimator#getCount()}.
+ * {@link AdapterViewBridgeImpl1} stays available as a fallback for the subclasses that
+ * depend on the private fields of AdapterView.
+ *
+ * @see "https://android.googlesource.com/platform/frameworks/base/+/android-4.0.1_r1/core/java/android/widget/AdapterView.java"
+ * @author Andrea Richiardi
+ *
+ */
+class AdapterViewBridgeImpl2 implements AdapterViewBridge {
+
+    /**
+     * Sync based on the selected child
+     */
+    static final int SYNC_SELECTED_POSITION = 0;
+
+    /**
+     * Sync based on the first child displayed
+     */
+    static final int SYNC_FIRST_POSITION = 1;
+
+    /**
+     * Maximum amount of time to spend in {@link #findSyncPosition()}
+     */
+    static final int SYNC_MAX_DURATION_MILLIS = 100;
+
+    private final AdapterViewAnimator mInstance;
+
+    private boolean mDataChanged;
+    private int mOldItemCount;
+    private int mItemCount;
+    private int mSelectedPosition = AdapterView.INVALID_POSITION;
+    private long mSelectedRowId = AdapterView.INVALID_ROW_ID;
+    private int mNextSelectedPosition = AdapterView.INVALID_POSITION;
+    private long mNextSelectedRowId = AdapterView.INVALID_ROW_ID;
+    private boolean mNeedSync;
+
+    private int mSyncPosition;
+    private long mSyncRowId = AdapterView.INVALID_ROW_ID;
+    private int mSyncMode;
+
+    private int mOldSelectedPosition = AdapterView.INVALID_POSITION;
+    private long mOldSelectedRowId = AdapterView.INVALID_ROW_ID;
+
+    AdapterViewBridgeImpl2(AdapterViewAnimator instance) {
+        mInstance = instance;
+    }
+
+    // Fields
+    @Override
+    public boolean getDataChanged() {
+        return mDataChanged;
+    }
+
+    @Override
+    public void setDataChanged(boolean dataChanged) {
+        mDataChanged = dataChanged;
+    }
+
+    @Override
+    public int getOldItemCount() {
+        return mOldItemCount;
+    }
+
+    @Override
+    public void setOldItemCount(int count) {
+        mOldItemCount = count;
+    }
+
+    @Override
+    public int getItemCount() {
+        return mItemCount;
+    }
+
+    @Override
+    public void setItemCount(int count) {
+        mItemCount = count;
+    }
+
+    @Override
+    public int getSelectedPosition() {
+        return mSelectedPosition;
+    }
+
+    @Override
+    public void setSelectedPosition(int position) {
+        mSelectedPosition = position;
+    }
+
+    @Override
+    public int getNextSelectedPosition() {
+        return mNextSelectedPosition;
+    }
+
+    @Override
+    public void setNextSelectedPosition(int position) {
+        mNextSelectedPosition = position;
+    }
+
+    @Override
+    public long getSelectedRowId() {
+        return mSelectedRowId;
+    }
+
+    @Override
+    public void setSelectedRowId(long id) {
+        mSelectedRowId = id;
+    }
+
+    @Override
+    public long getNextSelectedRowId() {
+        return mNextSelectedRowId;
+    }
+
+    @Override
+    public void setNextSelectedRowId(long id) {
+        mNextSelectedRowId = id;
+    }
+
+    @Override
+    public boolean getNeedSync() {
+        return mNeedSync;
+    }
+
+    @Override
+    public void setNeedSync(boolean needSync) {
+        mNeedSync = needSync;
+    }
+
+    // Methods
+
+    /**
+     * Setting the desired focusable states again lets AdapterView recompute
+     * the actual ones against the emptiness of the adapter.
+     */
+    @Override
+    public void checkFocus() {
+        final Adapter adapter = mInstance.getAdapter();
+        mInstance.setFocusableInTouchMode(mInstance.mDesiredFocusableInTouchModeState);
+        mInstance.setFocusable(mInstance.mDesiredFocusableState);
+        if (mInstance.getEmptyView() != null) {
+            updateEmptyStatus((adapter == null) || adapter.isEmpty());
+        }
+    }
+
+    private void updateEmptyStatus(boolean empty) {
+        final View emptyView = mInstance.getEmptyView();
+        if (empty) {
+            emptyView.setVisibility(View.VISIBLE);
+            mInstance.setVisibility(View.GONE);
+        } else {
+            emptyView.setVisibility(View.GONE);
+            mInstance.setVisibility(View.VISIBLE);
+        }
+    }
+
+    @Override
+    public void rememberSyncState() {
+        if (mInstance.getChildCount() > 0) {
+            mNeedSync = true;
+            if (mSelectedPosition >= 0) {
+                mSyncRowId = mNextSelectedRowId;
+                mSyncPosition = mNextSelectedPosition;
+                mSyncMode = SYNC_SELECTED_POSITION;
+            } else {
+                final Adapter adapter = mInstance.getAdapter();
+                final int firstPosition = mInstance.getFirstVisiblePosition();
+                if (adapter != null && firstPosition >= 0 && firstPosition < adapter.getCount()) {
+                    mSyncRowId = adapter.getItemId(firstPosition);
+                } else {
+                    mSyncRowId = AdapterView.INVALID_ROW_ID;
+                }
+                mSyncPosition = firstPosition;
+                mSyncMode = SYNC_FIRST_POSITION;
+            }
+        }
+    }
+
+    @Override
+    public void handleDataChanged() {
+        final int count = mItemCount;
+        boolean found = false;
+
+        if (count > 0) {
+            int newPos;
+
+            // Find the row we are supposed to sync to
+            if (mNeedSync) {
+                // Update this first, since setNextSelectedPositionInt inspects it
+                mNeedSync = false;
+
+                // See if we can find a position in the new data with the same
+                // id as the old selection
+                newPos = findSyncPosition();
+                if (newPos >= 0) {
+                    // Same row id is selected, every position is selectable in here
+                    setNextSelectedPositionInt(newPos);
+                    found = true;
+                }
+            }
+            if (!found) {
+                // Try to use the same position if we can't find matching data
+                newPos = mNextSelectedPosition;
+
+                // Pin position to the available range
+                if (newPos >= count) {
+                    newPos = count - 1;
+                }
+                if (newPos < 0) {
+                    newPos = 0;
+                }
+                setNextSelectedPositionInt(newPos);
+                checkSelectionChanged();
+                found = true;
+            }
+        }
+        if (!found) {
+            // Nothing is selected
+            mSelectedPosition = AdapterView.INVALID_POSITION;
+            mSelectedRowId = AdapterView.INVALID_ROW_ID;
+            mNextSelectedPosition = AdapterView.INVALID_POSITION;
+            mNextSelectedRowId = AdapterView.INVALID_ROW_ID;
+            mNeedSync = false;
+            checkSelectionChanged();
+        }
+    }
+
+    private void setNextSelectedPositionInt(int position) {
+        mNextSelectedPosition = position;
+        mNextSelectedRowId = mInstance.getItemIdAtPosition(position);
+        // If we are trying to sync to the selection, update that too
+        if (mNeedSync && mSyncMode == SYNC_SELECTED_POSITION && position >= 0) {
+            mSyncPosition = position;
+            mSyncRowId = mNextSelectedRowId;
+        }
+    }
+
+    private void checkSelectionChanged() {
+        if ((mSelectedPosition != mOldSelectedPosition) || (mSelectedRowId != mOldSelectedRowId)) {
+            selectionChanged();
+            mOldSelectedPosition = mSelectedPosition;
+            mOldSelectedRowId = mSelectedRowId;
+        }
+    }
+
+    private void selectionChanged() {
+        final AdapterView.OnItemSelectedListener listener = mInstance.getOnItemSelectedListener();
+        if (listener != null) {
+            final int selection = mSelectedPosition;
+            if (selection >= 0) {
+                listener.onItemSelected(mInstance, mInstance.getSelectedView(), selection,
+                        mInstance.getAdapter().getItemId(selection));
+            } else {
+                listener.onNothingSelected(mInstance);
+            }
+        }
+    }
+
+    /**
+     * Searches around the expected position for the row id to sync to.
+     *
+     * @return Position of the row that matches mSyncRowId, or INVALID_POSITION if no
+     *         such row could be found within SYNC_MAX_DURATION_MILLIS.
+     */
+    int findSyncPosition() {
+        final int count = mItemCount;
+        if (count == 0) {
+            return AdapterView.INVALID_POSITION;
+        }
+
+        final long idToMatch = mSyncRowId;
+        if (idToMatch == AdapterView.INVALID_ROW_ID) {
+            return AdapterView.INVALID_POSITION;
+        }
+
+        final Adapter adapter = mInstance.getAdapter();
+        if (adapter == null) {
+            return AdapterView.INVALID_POSITION;
+        }
+
+        // Ensure the search starts in the bounds of the data
+        int seed = Math.min(count - 1, Math.max(0, mSyncPosition));
+        final long endTime = SystemClock.uptimeMillis() + SYNC_MAX_DURATION_MILLIS;
+
+        // first and last position that we have checked so far
+        int first = seed;
+        int last = seed;
+
+        // True if we should move down on the next iteration
+        boolean next = false;
+
+        while (SystemClock.uptimeMillis() <= endTime) {
+            if (adapter.getItemId(seed) == idToMatch) {
+                // Found it!
+                return seed;
+            }
+
+            final boolean hitLast = last == count - 1;
+            final boolean hitFirst = first == 0;
+
+            if (hitLast && hitFirst) {
+                // Looked at everything
+                break;
+            }
+
+            if (hitFirst || (next && !hitLast)) {
+                // Either we hit the top, or we are trying to move down
+                last++;
+                seed = last;
+                // Try going up next time
+                next = false;
+            } else if (hitLast || (!next && !hitFirst)) {
+                // Either we hit the bottom, or we are trying to move up
+                first--;
+                seed = first;
+                // Try going down next time
+                next = true;
+            }
+        }
+        return AdapterView.INVALID_POSITION;
+    }
+}
@@ -193,9 +193,7 @@ public class AdapterViewFlipper extends AdapterViewAnimator {
        // if the flipper is currently flipping automatically, and showNext() is called
        // we should we should make sure to reset the timer
        if (mRunning) {
-           mHandler.removeMessages(FLIP_MSG);
-           Message msg = mHandler.obtainMessage(FLIP_MSG);
-           mHandler.sendMessageDelayed(msg, mFlipInterval);
+           scheduleNextFlip();
        }
        super.showNext();
    }
@@ -208,9 +206,7 @@ public class AdapterViewFlipper extends AdapterViewAnimator {
        // if the flipper is currently flipping automatically, and showPrevious() is called
        // we should we should make sure to reset the timer
        if (mRunning) {
-           mHandler.removeMessages(FLIP_MSG);
-           Message msg = mHandler.obtainMessage(FLIP_MSG);
-           mHandler.sendMessageDelayed(msg, mFlipInterval);
+           scheduleNextFlip();
        }
        super.showPrevious();
    }
@@ -239,8 +235,7 @@ public class AdapterViewFlipper extends AdapterViewAnimator {
         if (running != mRunning) {
             if (running) {
                 showOnly(mWhichChild, flipNow);
-                Message msg = mHandler.obtainMessage(FLIP_MSG);
-                mHandler.sendMessageDelayed(msg, mFlipInterval);
+                scheduleNextFlip();
             } else {
                 mHandler.removeMessages(FLIP_MSG);
             }
@@ -280,6 +275,23 @@ public class AdapterViewFlipper extends AdapterViewAnimator {
 
     private final int FLIP_MSG = 1;
 
+    /**
+     * The adapter can expect the next item every {@link #mFlipInterval} once flipping started.
+     */
+    @Override
+    long getFlipIntervalHint() {
+        return mStarted ? mFlipInterval : -1;
+    }
+
+    /**
+     * Replaces the pending flip, if any, with one after {@link #mFlipInterval}.
+     * The message comes from the global pool instead of a new Runnable per flip.
+     */
+    private void scheduleNextFlip() {
+        mHandler.removeMessages(FLIP_MSG);
+        mHandler.sendEmptyMessageDelayed(FLIP_MSG, mFlipInterval);
+    }
+
     private final Handler mHandler = new Handler() {
         @Override
         public void handleMessage(Message msg) {
@@ -0,0 +1,257 @@
+package com.andrearichiardi.android.avabackport.widget;
+
+import java.util.ArrayList;
+
+import android.view.View;
+
+import com.nineoldandroids.animation.Animator;
+import com.nineoldandroids.animation.AnimatorListenerAdapter;
+import com.nineoldandroids.animation.ValueAnimator;
+
+/**
+ * Runs the transitions of an {@link AdapterViewAnimator}, one animator instance per view.
+ * <p>
+ * The in and out animations set on the animator are templates: every transition runs a clone
+ * of them targeting a single view, so that a transition starting before the previous one is
+ * over does not retarget, and therefore cut short, an animation still running on another view.
+ * Running animators are kept in slots together with their target, a view leaving the animator
+ * has its animator cancelled and no animator outlives its slot holding a reference to a view.
+ * <p>
+ * Finished clones go back to a small pool and are reused for the next transitions with the
+ * same template, so that flipping does not allocate once the pool is warm. A pooled clone whose
+ * duration, start delay or interpolator no longer match its template is dropped, other changes
+ * to a template, such as its values, are only seen once the pool is cleared.
+ *
+ * @author Andrea Richiardi
+ *
+ */
+final class AnimatorManager {
+
+    /**
+     * Maximum number of finished clones kept for reuse.
+     */
+    static final int MAX_POOL_SIZE = 4;
+
+    /**
+     * A clone of a template and the view it is animating, if any.
+     */
+    private static final class Slot {
+        final Animator template;
+        final Animator animator;
+        View target;
+
+        /**
+         * True if the animator waits for the end of the batch to start
+         */
+        boolean pending;
+
+        Slot(Animator template, Animator animator) {
+            this.template = template;
+            this.animator = animator;
+        }
+    }
+
+    private final ArrayList<Slot> mRunning = new ArrayList<Slot>();
+    private final ArrayList<Slot> mPool = new ArrayList<Slot>(MAX_POOL_SIZE);
+    private boolean mBatching;
+    private TransitionListener mListener;
+
+    /**
+     * How many clones have been created, for diagnostics.
+     */
+    private int mCloneCount;
+
+    private final AnimatorListenerAdapter mReleaseListener = new AnimatorListenerAdapter() {
+        @Override
+        public void onAnimationEnd(Animator animation) {
+            release(indexOfAnimator(animation));
+        }
+    };
+
+    /**
+     * @param listener Told when the animator of a view ends or is cancelled, can be null
+     */
+    void setTransitionListener(TransitionListener listener) {
+        mListener = listener;
+    }
+
+    /**
+     * Runs a clone of the template on a view, cancelling the animator already running on it.
+     *
+     * @param template The animator to clone, nothing happens if null
+     * @param target The view to animate
+     */
+    void start(Animator template, View target) {
+        if (template == null) {
+            return;
+        }
+        cancel(target);
+
+        final Slot slot = obtain(template);
+        slot.target = target;
+        // Tracked before starting, an animator can end right away
+        mRunning.add(slot);
+        slot.animator.setTarget(target);
+        if (mBatching) {
+            slot.pending = true;
+        } else {
+            slot.animator.start();
+        }
+    }
+
+    /**
+     * Holds back the animators started from now on until {@link #endBatch()}, which starts
+     * them all in the same frame.
+     */
+    void beginBatch() {
+        mBatching = true;
+    }
+
+    /**
+     * Starts the animators held back since {@link #beginBatch()}.
+     */
+    void endBatch() {
+        mBatching = false;
+        // Backwards, an animator can end right away and leave the running ones
+        for (int i = mRunning.size() - 1; i >= 0; i--) {
+            if (i >= mRunning.size()) continue;
+            final Slot slot = mRunning.get(i);
+            if (slot.pending) {
+                slot.pending = false;
+                slot.animator.start();
+            }
+        }
+    }
+
+    private Slot obtain(Animator template) {
+        for (int i = mPool.size() - 1; i >= 0; i--) {
+            final Slot slot = mPool.get(i);
+            if (slot.template != template) {
+                continue;
+            }
+            mPool.remove(i);
+            if (!isStale(slot)) {
+                return slot;
+            }
+        }
+        final Animator animator = template.clone();
+        animator.addListener(mReleaseListener);
+        mCloneCount++;
+        return new Slot(template, animator);
+    }
+
+    /**
+     * @return True if the template of the slot changed since its clone was made, as far as it
+     *         can be told without allocating: its duration, start delay and interpolator.
+     */
+    private static boolean isStale(Slot slot) {
+        final Animator template = slot.template;
+        final Animator animator = slot.animator;
+        if (template.getDuration() != animator.getDuration()
+                || template.getStartDelay() != animator.getStartDelay()) {
+            return true;
+        }
+        return template instanceof ValueAnimator
+                && ((ValueAnimator) template).getInterpolator()
+                        != ((ValueAnimator) animator).getInterpolator();
+    }
+
+    /**
+     * Frees the slot at the given index of the running ones, -1 does nothing.
+     */
+    private void release(int index) {
+        if (index < 0) {
+            return;
+        }
+        final Slot slot = mRunning.remove(index);
+        final View target = slot.target;
+        slot.target = null;
+        slot.pending = false;
+        slot.animator.setTarget(null);
+        if (mPool.size() < MAX_POOL_SIZE) {
+            mPool.add(slot);
+        }
+        if (mListener != null) {
+            mListener.onTransitionEnd(target);
+        }
+    }
+
+    private int indexOfAnimator(Animator animator) {
+        for (int i = mRunning.size() - 1; i >= 0; i--) {
+            if (mRunning.get(i).animator == animator) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private int indexOfTarget(View target) {
+        for (int i = mRunning.size() - 1; i >= 0; i--) {
+            if (mRunning.get(i).target == target) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Cancels the animator running on a view, if any, leaving the view where it is.
+     */
+    void cancel(View target) {
+        final int index = indexOfTarget(target);
+        if (index < 0) {
+            return;
+        }
+        final Animator animator = mRunning.get(index).animator;
+        animator.cancel();
+        // An animator cancelled during its start delay does not notify its end
+        release(indexOfAnimator(animator));
+    }
+
+    /**
+     * Ends every running animator, the views jump to the end of their transition.
+     */
+    void endAll() {
+        while (!mRunning.isEmpty()) {
+            final Animator animator = mRunning.get(mRunning.size() - 1).animator;
+            animator.end();
+            release(indexOfAnimator(animator));
+        }
+    }
+
+    /**
+     * Drops the finished clones, for example because their template will not be used anymore.
+     */
+    void clearPool() {
+        mPool.clear();
+    }
+
+    /**
+     * @return True if no animator is running.
+     */
+    boolean isIdle() {
+        return mRunning.isEmpty();
+    }
+
+    /**
+     * @return The number of running animators.
+     */
+    int getRunningCount() {
+        return mRunning.size();
+    }
+
+    /**
+     * @return True if an animator is running on the view.
+     */
+    boolean isAnimating(View target) {
+        return indexOfTarget(target) >= 0;
+    }
+
+    int getPoolSize() {
+        return mPool.size();
+    }
+
+    int getCloneCount() {
+        return mCloneCount;
+    }
+}
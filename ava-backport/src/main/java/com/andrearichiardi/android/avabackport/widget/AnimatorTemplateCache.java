@@ -0,0 +1,76 @@
+package com.andrearichiardi.android.avabackport.widget;
+
+import android.content.Context;
+import android.content.res.Configuration;
+import android.util.SparseArray;
+
+import com.nineoldandroids.animation.Animator;
+import com.nineoldandroids.animation.AnimatorInflater;
+
+/**
+ * A process-wide cache of the animators inflated from resources.
+ * <p>
+ * {@link AnimatorInflater#loadAnimator(Context, int)} parses the XML of the animator every
+ * time it is called, which every {@link AdapterViewAnimator} inflated from a layout does twice.
+ * The cache parses each resource once and keeps the result as a template, every caller then
+ * gets its own clone of it: cloning only copies the already parsed values, and callers can
+ * modify their animator without affecting the others.
+ * <p>
+ * Animator resources can have alternatives per configuration, the cache is emptied when the
+ * configuration changes.
+ *
+ * @author Andrea Richiardi
+ *
+ */
+final class AnimatorTemplateCache {
+
+    private static final SparseArray<Animator> sTemplates = new SparseArray<Animator>();
+    private static final Configuration sConfiguration = new Configuration();
+
+    private AnimatorTemplateCache() {
+    }
+
+    /**
+     * Returns a clone of the animator of a resource, inflating it the first time.
+     *
+     * @param context The context to inflate the animator with
+     * @param resourceID The resource id of the animator
+     * @return A new animator, owned by the caller.
+     */
+    static Animator loadAnimator(Context context, int resourceID) {
+        synchronized (sTemplates) {
+            final Configuration configuration = context.getResources().getConfiguration();
+            if (!sConfiguration.equals(configuration)) {
+                sTemplates.clear();
+                sConfiguration.setTo(configuration);
+            }
+            Animator template = sTemplates.get(resourceID);
+            if (template == null) {
+                // The template outlives any Activity, it must not hold one
+                final Context appContext = context.getApplicationContext();
+                template = AnimatorInflater.loadAnimator(appContext != null ? appContext : context,
+                        resourceID);
+                sTemplates.put(resourceID, template);
+            }
+            return template.clone();
+        }
+    }
+
+    /**
+     * @return The number of cached templates.
+     */
+    static int size() {
+        synchronized (sTemplates) {
+            return sTemplates.size();
+        }
+    }
+
+    /**
+     * Drops every template.
+     */
+    static void clear() {
+        synchronized (sTemplates) {
+            sTemplates.clear();
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.andrearichiardi.android.avabackport.widget;
+
+import java.lang.reflect.Array;
+
+/**
+ * Helpers for the flat arrays of the widget package.
+ * <p>
+ * The arrays are grown by hand because <code>Arrays.copyOf</code> only exists from API 9,
+ * while this library runs down to API 3.
+ *
+ * @author Andrea Richiardi
+ *
+ */
+final class ArrayUtils {
+
+    private ArrayUtils() {
+    }
+
+    /**
+     * @param array The array to grow
+     * @param length The new length, not smaller than the length of the array
+     * @return A new array of the same component type, starting with the elements of the array.
+     */
+    @SuppressWarnings("unchecked")
+    static <T> T[] grow(T[] array, int length) {
+        final T[] grown = (T[]) Array.newInstance(array.getClass().getComponentType(), length);
+        System.arraycopy(array, 0, grown, 0, array.length);
+        return grown;
+    }
+
+    /**
+     * @see #grow(Object[], int)
+     */
+    static long[] grow(long[] array, int length) {
+        final long[] grown = new long[length];
+        System.arraycopy(array, 0, grown, 0, array.length);
+        return grown;
+    }
+
+    /**
+     * @see #grow(Object[], int)
+     */
+    static int[] grow(int[] array, int length) {
+        final int[] grown = new int[length];
+        System.arraycopy(array, 0, grown, 0, array.length);
+        return grown;
+    }
+
+    /**
+     * @see #grow(Object[], int)
+     */
+    static float[] grow(float[] array, int length) {
+        final float[] grown = new float[length];
+        System.arraycopy(array, 0, grown, 0, array.length);
+        return grown;
+    }
+}
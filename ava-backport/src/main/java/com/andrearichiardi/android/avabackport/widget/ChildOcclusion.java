@@ -0,0 +1,87 @@
+package com.andrearichiardi.android.avabackport.widget;
+
+import java.util.Arrays;
+
+import android.view.View;
+
+/**
+ * The children of an {@link AdapterViewAnimator} that are hidden behind opaque children drawn
+ * after them, for the frame being drawn.
+ * <p>
+ * The animator goes through its children from the last drawn to the first one: every child
+ * that is opaque and still becomes an occluder, every child within the bounds of an occluder is
+ * occluded and is not drawn. Bounds are kept in flat arrays reused from frame to frame, a frame
+ * costs O(children x occluders) comparisons and no allocation.
+ *
+ * @author Andrea Richiardi
+ *
+ */
+final class ChildOcclusion {
+
+    /**
+     * Left, top, right and bottom of each occluder
+     */
+    private int[] mOccluders = new int[4 * 4];
+    private int mOccluderCount;
+
+    private View[] mOccluded = new View[4];
+    private int mOccludedCount;
+
+    /**
+     * Forgets the previous frame.
+     */
+    void reset() {
+        Arrays.fill(mOccluded, 0, mOccludedCount, null);
+        mOccludedCount = 0;
+        mOccluderCount = 0;
+    }
+
+    void addOccluder(int left, int top, int right, int bottom) {
+        if (mOccluderCount * 4 == mOccluders.length) {
+            mOccluders = ArrayUtils.grow(mOccluders, mOccluders.length * 2);
+        }
+        final int offset = mOccluderCount++ * 4;
+        mOccluders[offset] = left;
+        mOccluders[offset + 1] = top;
+        mOccluders[offset + 2] = right;
+        mOccluders[offset + 3] = bottom;
+    }
+
+    /**
+     * @return True if the bounds are entirely within the bounds of one of the occluders.
+     */
+    boolean isCovered(int left, int top, int right, int bottom) {
+        for (int i = 0; i < mOccluderCount; i++) {
+            final int offset = i * 4;
+            if (mOccluders[offset] <= left && mOccluders[offset + 1] <= top
+                    && mOccluders[offset + 2] >= right && mOccluders[offset + 3] >= bottom) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    void addOccluded(View child) {
+        if (mOccludedCount == mOccluded.length) {
+            mOccluded = ArrayUtils.grow(mOccluded, mOccludedCount * 2);
+        }
+        mOccluded[mOccludedCount++] = child;
+    }
+
+    boolean isOccluded(View child) {
+        for (int i = 0; i < mOccludedCount; i++) {
+            if (mOccluded[i] == child) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    int getOccluderCount() {
+        return mOccluderCount;
+    }
+
+    int getOccludedCount() {
+        return mOccludedCount;
+    }
+}
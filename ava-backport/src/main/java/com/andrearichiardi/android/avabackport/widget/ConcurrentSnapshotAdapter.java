@@ -0,0 +1,213 @@
+package com.andrearichiardi.android.avabackport.widget;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import android.widget.BaseAdapter;
+
+import com.nineoldandroids.animation.ValueAnimator;
+
+/**
+ * A {@link BaseAdapter} whose items can be written from any thread.
+ * <p>
+ * Producers never block: {@link #add(Object)}, {@link #addAll(Collection)},
+ * {@link #set(int, Object)}, {@link #replaceAll(Collection)} and {@link #clear()} only append
+ * an operation to a lock-free queue. At most once per animation frame (see
+ * {@link ValueAnimator#getFrameDelay()}) the main thread applies all the pending operations
+ * to a copy of the items, swaps it in as the new immutable snapshot and fires a single
+ * {@link #notifyDataSetChanged()}, however many producers wrote in the meantime.
+ * <p>
+ * The adapter methods read the snapshot, so the {@link AdapterViewAnimator} always sees a
+ * consistent list between two notifications. Operations are applied in the order they have
+ * been queued.
+ *
+ * @param <T> The type of the items
+ * @author Andrea Richiardi
+ *
+ */
+public abstract class ConcurrentSnapshotAdapter<T> extends BaseAdapter {
+
+    private static final String TAG = "com.andrearichiardi.android.widget.ConcurrentSnapshotAdapter";
+
+    private static final Object[] EMPTY = new Object[0];
+
+    private static final int OP_ADD = 0;
+    private static final int OP_ADD_ALL = 1;
+    private static final int OP_SET = 2;
+    private static final int OP_REPLACE_ALL = 3;
+    private static final int OP_CLEAR = 4;
+
+    /**
+     * A write waiting for the next publication.
+     */
+    private static final class Op {
+        final int type;
+        final int position;
+        final Object item;
+        final Object[] items;
+
+        Op(int type, int position, Object item, Object[] items) {
+            this.type = type;
+            this.position = position;
+            this.item = item;
+            this.items = items;
+        }
+    }
+
+    private final ConcurrentLinkedQueue<Op> mPendingOps = new ConcurrentLinkedQueue<Op>();
+    private final AtomicBoolean mPublishScheduled = new AtomicBoolean();
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+
+    private final Runnable mPublish = new Runnable() {
+        @Override
+        public void run() {
+            publish();
+        }
+    };
+
+    /**
+     * Written by the main thread only, read by any thread.
+     */
+    private volatile Object[] mSnapshot = EMPTY;
+
+    /**
+     * How many publications happened, for diagnostics.
+     */
+    private int mPublishCount;
+
+    /**
+     * Appends an item. Can be called from any thread.
+     */
+    public void add(T item) {
+        enqueue(new Op(OP_ADD, -1, item, null));
+    }
+
+    /**
+     * Appends some items. The collection is copied right away. Can be called from any thread.
+     */
+    public void addAll(Collection<? extends T> items) {
+        enqueue(new Op(OP_ADD_ALL, -1, null, items.toArray()));
+    }
+
+    /**
+     * Replaces the item at a position. The position is checked when the operation is applied,
+     * against the items at that time; if it is out of range the operation is dropped.
+     * Can be called from any thread.
+     */
+    public void set(int position, T item) {
+        enqueue(new Op(OP_SET, position, item, null));
+    }
+
+    /**
+     * Replaces all the items. The collection is copied right away. Can be called from any thread.
+     */
+    public void replaceAll(Collection<? extends T> items) {
+        enqueue(new Op(OP_REPLACE_ALL, -1, null, items.toArray()));
+    }
+
+    /**
+     * Removes all the items. Can be called from any thread.
+     */
+    public void clear() {
+        enqueue(new Op(OP_CLEAR, -1, null, null));
+    }
+
+    private void enqueue(Op op) {
+        mPendingOps.offer(op);
+        // Only the first write after a publication schedules the next one
+        if (mPublishScheduled.compareAndSet(false, true)) {
+            mMainHandler.postDelayed(mPublish, ValueAnimator.getFrameDelay());
+        }
+    }
+
+    /**
+     * Applies the pending operations and notifies the observers once. Main thread only.
+     */
+    void publish() {
+        // Cleared before draining: a write racing with the drain schedules another publication
+        mPublishScheduled.set(false);
+
+        Op op = mPendingOps.poll();
+        if (op == null) {
+            return;
+        }
+
+        final Object[] snapshot = mSnapshot;
+        final ArrayList<Object> items = new ArrayList<Object>(snapshot.length + 8);
+        items.addAll(Arrays.asList(snapshot));
+        do {
+            apply(items, op);
+            op = mPendingOps.poll();
+        } while (op != null);
+
+        mSnapshot = items.isEmpty() ? EMPTY : items.toArray();
+        mPublishCount++;
+        notifyDataSetChanged();
+    }
+
+    private static void apply(ArrayList<Object> items, Op op) {
+        switch (op.type) {
+        case OP_ADD:
+            items.add(op.item);
+            break;
+        case OP_ADD_ALL:
+            items.addAll(Arrays.asList(op.items));
+            break;
+        case OP_SET:
+            if (op.position >= 0 && op.position < items.size()) {
+                items.set(op.position, op.item);
+            } else {
+                Log.w(TAG, "Dropping set(" + op.position + ") on " + items.size() + " items");
+            }
+            break;
+        case OP_REPLACE_ALL:
+            items.clear();
+            items.addAll(Arrays.asList(op.items));
+            break;
+        case OP_CLEAR:
+            items.clear();
+            break;
+        default:
+            throw new IllegalStateException("Unknown operation " + op.type);
+        }
+    }
+
+    /**
+     * @return The last published items, which cannot be modified. Can be called from any thread.
+     */
+    @SuppressWarnings("unchecked")
+    public List<T> getSnapshot() {
+        return (List<T>) Collections.unmodifiableList(Arrays.asList(mSnapshot));
+    }
+
+    /**
+     * @return How many times the pending writes have been published.
+     */
+    public int getPublishCount() {
+        return mPublishCount;
+    }
+
+    @Override
+    public int getCount() {
+        return mSnapshot.length;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public T getItem(int position) {
+        return (T) mSnapshot[position];
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return position;
+    }
+}
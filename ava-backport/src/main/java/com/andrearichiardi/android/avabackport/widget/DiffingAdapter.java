@@ -0,0 +1,385 @@
+package com.andrearichiardi.android.avabackport.widget;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import android.database.DataSetObserver;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.widget.BaseAdapter;
+
+/**
+ * A {@link BaseAdapter} backed by an immutable list that is replaced as a whole with
+ * {@link #setItems(List)}.
+ * <p>
+ * The difference between the displayed list and the new one (removed, inserted, moved and
+ * changed items) is computed on a background {@link Executor}, then the new list is published
+ * on the main thread. An {@link AdapterViewAnimator} using this adapter receives the
+ * {@link DiffResult} and only touches the frames of the items that actually changed, the other
+ * {@link DataSetObserver}s get a regular {@link DataSetObserver#onChanged()}.
+ * <p>
+ * Items are matched through the key returned by {@link #getItemKey(Object)}, which is also the
+ * stable id of the item. The diff runs in O(n log n) time.
+ *
+ * @param <T> The type of the items
+ * @author Andrea Richiardi
+ *
+ */
+public abstract class DiffingAdapter<T> extends BaseAdapter {
+
+    /**
+     * Observers that can apply a {@link DiffResult} instead of refreshing everything.
+     */
+    interface ItemUpdateObserver {
+        void onItemUpdates(DiffResult result);
+    }
+
+    private static ExecutorService sDefaultExecutor;
+
+    private final Executor mExecutor;
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+    private final ArrayList<DataSetObserver> mObservers = new ArrayList<DataSetObserver>();
+
+    private List<T> mItems = Collections.emptyList();
+
+    /**
+     * Incremented by every {@link #setItems(List)}, only the result of the latest one is published.
+     */
+    private int mGeneration;
+
+    /**
+     * Uses a background thread shared by all the DiffingAdapters.
+     */
+    public DiffingAdapter() {
+        this(getDefaultExecutor());
+    }
+
+    /**
+     * @param executor The executor computing the differences.
+     */
+    public DiffingAdapter(Executor executor) {
+        mExecutor = executor;
+    }
+
+    private static synchronized Executor getDefaultExecutor() {
+        if (sDefaultExecutor == null) {
+            sDefaultExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    final Thread thread = new Thread(r, "DiffingAdapter") {
+                        @Override
+                        public void run() {
+                            Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                            super.run();
+                        }
+                    };
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return sDefaultExecutor;
+    }
+
+    /**
+     * Returns the key identifying an item across lists. Two items with the same key are
+     * considered the same item, possibly with a different content.
+     * Keys should be unique within a list.
+     *
+     * @param item The item
+     * @return The key of the item, which is also its stable id.
+     */
+    protected abstract long getItemKey(T item);
+
+    /**
+     * Called on the background thread for two items with the same key.
+     * By default it relies on {@link Object#equals(Object)}.
+     *
+     * @return True if the view of the old item does not need to be bound again for the new one.
+     */
+    protected boolean areContentsTheSame(T oldItem, T newItem) {
+        return oldItem == null ? newItem == null : oldItem.equals(newItem);
+    }
+
+    /**
+     * Replaces the list of items. The list is copied, then it is compared with the displayed one
+     * in background and eventually published on the main thread. If this method is called again
+     * before that happens, only the latest list is published.
+     * <p>
+     * Must be called from the main thread.
+     *
+     * @param items The new items
+     */
+    public void setItems(List<T> items) {
+        final List<T> oldItems = mItems;
+        final List<T> newItems = Collections.unmodifiableList(new ArrayList<T>(items));
+        final int generation = ++mGeneration;
+
+        mExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                final DiffResult result = computeDiff(oldItems, newItems);
+                mMainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        publish(generation, oldItems, newItems, result);
+                    }
+                });
+            }
+        });
+    }
+
+    private void publish(int generation, List<T> oldItems, List<T> newItems, DiffResult result) {
+        if (generation != mGeneration || oldItems != mItems) {
+            // A newer list is on its way
+            return;
+        }
+        mItems = newItems;
+        if (result.hasUpdates()) {
+            dispatchItemUpdates(result);
+        }
+    }
+
+    /**
+     * @return The displayed items, which cannot be modified.
+     */
+    public List<T> getItems() {
+        return mItems;
+    }
+
+    @Override
+    public int getCount() {
+        return mItems.size();
+    }
+
+    @Override
+    public T getItem(int position) {
+        return mItems.get(position);
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return getItemKey(mItems.get(position));
+    }
+
+    @Override
+    public boolean hasStableIds() {
+        return true;
+    }
+
+    // The observers are kept here in order to tell apart the ones that can apply a DiffResult
+
+    @Override
+    public void registerDataSetObserver(DataSetObserver observer) {
+        if (observer == null) {
+            throw new IllegalArgumentException("The observer is null.");
+        }
+        if (mObservers.contains(observer)) {
+            throw new IllegalStateException("Observer " + observer + " is already registered.");
+        }
+        mObservers.add(observer);
+    }
+
+    @Override
+    public void unregisterDataSetObserver(DataSetObserver observer) {
+        if (observer == null) {
+            throw new IllegalArgumentException("The observer is null.");
+        }
+        if (!mObservers.remove(observer)) {
+            throw new IllegalStateException("Observer " + observer + " was not registered.");
+        }
+    }
+
+    @Override
+    public void notifyDataSetChanged() {
+        // Backwards, like DataSetObservable, so that observers can unregister themselves
+        for (int i = mObservers.size() - 1; i >= 0; i--) {
+            mObservers.get(i).onChanged();
+        }
+    }
+
+    @Override
+    public void notifyDataSetInvalidated() {
+        for (int i = mObservers.size() - 1; i >= 0; i--) {
+            mObservers.get(i).onInvalidated();
+        }
+    }
+
+    private void dispatchItemUpdates(DiffResult result) {
+        for (int i = mObservers.size() - 1; i >= 0; i--) {
+            final DataSetObserver observer = mObservers.get(i);
+            if (observer instanceof ItemUpdateObserver) {
+                ((ItemUpdateObserver) observer).onItemUpdates(result);
+            } else {
+                observer.onChanged();
+            }
+        }
+    }
+
+    /**
+     * Matches the items by key: unmatched old items are removed, unmatched new items are
+     * inserted, and matched items that are not part of the longest sequence keeping their
+     * relative order are moved.
+     */
+    DiffResult computeDiff(List<T> oldItems, List<T> newItems) {
+        final int oldSize = oldItems.size();
+        final int newSize = newItems.size();
+        final int[] oldToNew = new int[oldSize];
+        final int[] newToOld = new int[newSize];
+        final boolean[] changed = new boolean[newSize];
+        Arrays.fill(oldToNew, -1);
+
+        final LongIntMap oldPositions = new LongIntMap(oldSize);
+        for (int i = 0; i < oldSize; i++) {
+            final long key = getItemKey(oldItems.get(i));
+            // Duplicated keys: only the first one can be matched
+            if (!oldPositions.containsKey(key)) {
+                oldPositions.put(key, i);
+            }
+        }
+
+        int changeCount = 0;
+        for (int i = 0; i < newSize; i++) {
+            final T newItem = newItems.get(i);
+            final int oldPosition = oldPositions.get(getItemKey(newItem), -1);
+            if (oldPosition >= 0 && oldToNew[oldPosition] == -1) {
+                oldToNew[oldPosition] = i;
+                newToOld[i] = oldPosition;
+                if (!areContentsTheSame(oldItems.get(oldPosition), newItem)) {
+                    changed[i] = true;
+                    changeCount++;
+                }
+            } else {
+                newToOld[i] = -1;
+            }
+        }
+
+        final int matchCount = countMatched(newToOld);
+        final int moveCount = matchCount - longestIncreasingRun(newToOld);
+        return new DiffResult(oldToNew, newToOld, changed,
+                newSize - matchCount, oldSize - matchCount, moveCount, changeCount);
+    }
+
+    private static int countMatched(int[] newToOld) {
+        int count = 0;
+        for (int i = 0; i < newToOld.length; i++) {
+            if (newToOld[i] >= 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return The length of the longest strictly increasing subsequence of the matched
+     *         old positions, that is, the number of items that did not move.
+     */
+    private static int longestIncreasingRun(int[] newToOld) {
+        final int[] tails = new int[newToOld.length];
+        int length = 0;
+        for (int i = 0; i < newToOld.length; i++) {
+            final int value = newToOld[i];
+            if (value < 0) {
+                continue;
+            }
+            int low = 0;
+            int high = length;
+            while (low < high) {
+                final int mid = (low + high) >>> 1;
+                if (tails[mid] < value) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            tails[low] = value;
+            if (low == length) {
+                length++;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * The difference between two lists of items, as computed by a {@link DiffingAdapter}.
+     */
+    public static final class DiffResult {
+        private final int[] mOldToNew;
+        private final int[] mNewToOld;
+        private final boolean[] mChanged;
+        private final int mInsertCount;
+        private final int mRemoveCount;
+        private final int mMoveCount;
+        private final int mChangeCount;
+
+        DiffResult(int[] oldToNew, int[] newToOld, boolean[] changed,
+                int insertCount, int removeCount, int moveCount, int changeCount) {
+            mOldToNew = oldToNew;
+            mNewToOld = newToOld;
+            mChanged = changed;
+            mInsertCount = insertCount;
+            mRemoveCount = removeCount;
+            mMoveCount = moveCount;
+            mChangeCount = changeCount;
+        }
+
+        /**
+         * @return The position of an old item in the new list, -1 if it has been removed.
+         */
+        public int getNewPosition(int oldPosition) {
+            return mOldToNew[oldPosition];
+        }
+
+        /**
+         * @return The position of a new item in the old list, -1 if it has been inserted.
+         */
+        public int getOldPosition(int newPosition) {
+            return mNewToOld[newPosition];
+        }
+
+        /**
+         * @return True if the item at the new position needs to be bound again.
+         */
+        public boolean isChanged(int newPosition) {
+            return mChanged[newPosition];
+        }
+
+        public int getOldSize() {
+            return mOldToNew.length;
+        }
+
+        public int getNewSize() {
+            return mNewToOld.length;
+        }
+
+        public int getInsertCount() {
+            return mInsertCount;
+        }
+
+        public int getRemoveCount() {
+            return mRemoveCount;
+        }
+
+        public int getMoveCount() {
+            return mMoveCount;
+        }
+
+        public int getChangeCount() {
+            return mChangeCount;
+        }
+
+        /**
+         * @return False if both lists hold the same items with the same content.
+         */
+        public boolean hasUpdates() {
+            return mInsertCount > 0 || mRemoveCount > 0 || mMoveCount > 0 || mChangeCount > 0;
+        }
+    }
+}
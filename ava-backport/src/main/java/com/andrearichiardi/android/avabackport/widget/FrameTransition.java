@@ -0,0 +1,141 @@
+package com.andrearichiardi.android.avabackport.widget;
+
+import android.view.animation.AccelerateDecelerateInterpolator;
+import android.view.animation.Interpolator;
+
+/**
+ * A transition of the alpha, translation and scale of a child of an {@link AdapterViewAnimator},
+ * run by the animator itself instead of an {@link com.nineoldandroids.animation.Animator}.
+ * <p>
+ * Before Honeycomb, NineOldAndroids animates views through reflective property setters and an
+ * {@link com.nineoldandroids.view.animation.AnimatorProxy} per view, on every frame. A frame
+ * transition is instead applied as a static transformation of the child while the animator
+ * draws: the interpolator is sampled once into a table when the transition is created and
+ * every frame only reads the table, without reflection nor allocations.
+ * <p>
+ * Properties not animated keep their identity value, that is, 1 for the alpha and the scales
+ * and 0 for the translations. The scales pivot around the center of the child.
+ *
+ * @see AdapterViewAnimator#setInTransition(FrameTransition)
+ * @see AdapterViewAnimator#setOutTransition(FrameTransition)
+ * @author Andrea Richiardi
+ *
+ */
+public final class FrameTransition {
+
+    public static final int ALPHA = 0;
+    public static final int TRANSLATION_X = 1;
+    public static final int TRANSLATION_Y = 2;
+    public static final int SCALE_X = 3;
+    public static final int SCALE_Y = 4;
+
+    static final int PROPERTY_COUNT = 5;
+
+    /**
+     * Number of intervals the interpolator is sampled at.
+     */
+    static final int TABLE_SIZE = 256;
+
+    private static final float[] IDENTITY = { 1.0f, 0.0f, 0.0f, 1.0f, 1.0f };
+
+    private final long mDuration;
+    private final float[] mTable = new float[TABLE_SIZE + 1];
+    private final float[] mFrom = IDENTITY.clone();
+    private final float[] mTo = IDENTITY.clone();
+
+    /**
+     * Uses the same interpolator as {@link com.nineoldandroids.animation.ValueAnimator}, an
+     * {@link AccelerateDecelerateInterpolator}.
+     *
+     * @param duration The duration in milliseconds
+     */
+    public FrameTransition(long duration) {
+        this(duration, new AccelerateDecelerateInterpolator());
+    }
+
+    /**
+     * @param duration The duration in milliseconds
+     * @param interpolator The interpolator, sampled right away and not kept
+     */
+    public FrameTransition(long duration, Interpolator interpolator) {
+        if (duration < 0) {
+            throw new IllegalArgumentException("Negative duration " + duration);
+        }
+        mDuration = duration;
+        for (int i = 0; i <= TABLE_SIZE; i++) {
+            mTable[i] = interpolator.getInterpolation(i / (float) TABLE_SIZE);
+        }
+    }
+
+    /**
+     * Animates a property between two values.
+     *
+     * @param property One of {@link #ALPHA}, {@link #TRANSLATION_X}, {@link #TRANSLATION_Y},
+     *        {@link #SCALE_X} or {@link #SCALE_Y}
+     * @param from The value at the start, translations in pixels
+     * @param to The value at the end
+     * @return This transition.
+     */
+    public FrameTransition animate(int property, float from, float to) {
+        if (property < 0 || property >= PROPERTY_COUNT) {
+            throw new IllegalArgumentException("Unknown property " + property);
+        }
+        mFrom[property] = from;
+        mTo[property] = to;
+        return this;
+    }
+
+    public long getDuration() {
+        return mDuration;
+    }
+
+    /**
+     * @return A fade from transparent to opaque, like the default in animation.
+     */
+    public static FrameTransition fadeIn(long duration) {
+        return new FrameTransition(duration).animate(ALPHA, 0.0f, 1.0f);
+    }
+
+    /**
+     * @return A fade from opaque to transparent, like the default out animation.
+     */
+    public static FrameTransition fadeOut(long duration) {
+        return new FrameTransition(duration).animate(ALPHA, 1.0f, 0.0f);
+    }
+
+    /**
+     * @param fraction The elapsed fraction of the duration, between 0 and 1
+     * @return The interpolated fraction, read from the table.
+     */
+    float getInterpolation(float fraction) {
+        final float position = fraction * TABLE_SIZE;
+        final int i = (int) position;
+        if (i >= TABLE_SIZE) {
+            return mTable[TABLE_SIZE];
+        }
+        if (i < 0) {
+            return mTable[0];
+        }
+        return mTable[i] + (position - i) * (mTable[i + 1] - mTable[i]);
+    }
+
+    /**
+     * @return The value of a property for an interpolated fraction.
+     */
+    float getValue(int property, float interpolated) {
+        return mFrom[property] + interpolated * (mTo[property] - mFrom[property]);
+    }
+
+    /**
+     * @return True if the child looks untransformed at the end of the transition, which can
+     *         then be forgotten once over.
+     */
+    boolean endsAtIdentity() {
+        for (int property = 0; property < PROPERTY_COUNT; property++) {
+            if (mTo[property] != IDENTITY[property]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,143 @@
+package com.andrearichiardi.android.avabackport.widget;
+
+import java.util.Arrays;
+
+/**
+ * An open addressing hash map from primitive <code>long</code> keys to primitive
+ * <code>int</code> values, with linear probing.
+ * <p>
+ * Neither {@link #put(long, int)} nor {@link #get(long, int)} box their arguments, and
+ * {@link #clear()} runs in constant time by bumping a generation counter instead of
+ * wiping the tables. The map only allocates when it has to grow.
+ * It does not support removal, which is not needed to remap a window of views.
+ *
+ * @author Andrea Richiardi
+ *
+ */
+class LongIntMap {
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private long[] mKeys;
+    private int[] mValues;
+
+    /**
+     * A slot is in use only if its generation is the current one.
+     */
+    private int[] mGenerations;
+    private int mGeneration = 1;
+
+    private int mMask;
+    private int mSize;
+
+    LongIntMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param expectedSize The number of mappings the map will hold without growing.
+     */
+    LongIntMap(int expectedSize) {
+        allocate(capacityFor(expectedSize));
+    }
+
+    private static int capacityFor(int expectedSize) {
+        int capacity = DEFAULT_CAPACITY;
+        // Keep the load factor under 0.5
+        while (capacity < expectedSize * 2) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    private void allocate(int capacity) {
+        mKeys = new long[capacity];
+        mValues = new int[capacity];
+        mGenerations = new int[capacity];
+        mMask = capacity - 1;
+        mSize = 0;
+    }
+
+    private static int hash(long key) {
+        int h = (int) (key ^ (key >>> 32));
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Adds a mapping, replacing the previous value of the key if any.
+     */
+    void put(long key, int value) {
+        if ((mSize + 1) * 2 > mKeys.length) {
+            grow();
+        }
+        int slot = hash(key) & mMask;
+        while (mGenerations[slot] == mGeneration) {
+            if (mKeys[slot] == key) {
+                mValues[slot] = value;
+                return;
+            }
+            slot = (slot + 1) & mMask;
+        }
+        mGenerations[slot] = mGeneration;
+        mKeys[slot] = key;
+        mValues[slot] = value;
+        mSize++;
+    }
+
+    /**
+     * @return The value mapped to the key, or valueIfKeyNotFound if there is none.
+     */
+    int get(long key, int valueIfKeyNotFound) {
+        int slot = hash(key) & mMask;
+        while (mGenerations[slot] == mGeneration) {
+            if (mKeys[slot] == key) {
+                return mValues[slot];
+            }
+            slot = (slot + 1) & mMask;
+        }
+        return valueIfKeyNotFound;
+    }
+
+    boolean containsKey(long key) {
+        int slot = hash(key) & mMask;
+        while (mGenerations[slot] == mGeneration) {
+            if (mKeys[slot] == key) {
+                return true;
+            }
+            slot = (slot + 1) & mMask;
+        }
+        return false;
+    }
+
+    int size() {
+        return mSize;
+    }
+
+    /**
+     * Removes all the mappings, without touching the tables.
+     */
+    void clear() {
+        mSize = 0;
+        if (++mGeneration == 0) {
+            // Wrapped around after 2^32 clears, stale generations could match again
+            Arrays.fill(mGenerations, 0);
+            mGeneration = 1;
+        }
+    }
+
+    private void grow() {
+        final long[] oldKeys = mKeys;
+        final int[] oldValues = mValues;
+        final int[] oldGenerations = mGenerations;
+        final int oldGeneration = mGeneration;
+
+        allocate(oldKeys.length << 1);
+        mGeneration = 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldGenerations[i] == oldGeneration) {
+                put(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+}
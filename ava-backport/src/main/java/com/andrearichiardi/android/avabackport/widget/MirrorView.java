@@ -0,0 +1,92 @@
+package com.andrearichiardi.android.avabackport.widget;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.view.View;
+import android.view.ViewParent;
+
+/**
+ * Draws a view that lives somewhere else in the hierarchy.
+ * <p>
+ * When an {@link AdapterViewAnimator} loops over fewer items than it keeps in its window,
+ * several indexes of the window show the same adapter position. With
+ * {@link AdapterViewAnimator#setShareDuplicateViews(boolean)} only the first of them gets a view
+ * from the adapter, the others get a mirror of it: the mirror takes the size of the source and
+ * draws it in place of its own content, so that the item is inflated and bound once.
+ * <p>
+ * A mirror registers with the {@link TransitionFrame} holding its source, which redraws it
+ * whenever the source is invalidated. Mirrors are not interactive, the source keeps the focus
+ * and the touch events.
+ *
+ * @author Andrea Richiardi
+ *
+ */
+final class MirrorView extends View {
+
+    private View mSource;
+
+    /**
+     * The frame holding the source, which redraws this mirror, null if it is not a
+     * {@link TransitionFrame}
+     */
+    private TransitionFrame mSourceFrame;
+
+    MirrorView(Context context) {
+        super(context);
+        setWillNotDraw(false);
+    }
+
+    /**
+     * @param source The view to draw, null to draw nothing.
+     */
+    void setSource(View source) {
+        if (mSource != source) {
+            mSource = source;
+            requestLayout();
+            invalidate();
+        }
+        updateSourceFrame();
+    }
+
+    /**
+     * Registers the mirror with the frame currently holding its source.
+     */
+    void updateSourceFrame() {
+        final ViewParent parent = mSource != null ? mSource.getParent() : null;
+        final TransitionFrame frame = parent instanceof TransitionFrame
+                ? (TransitionFrame) parent : null;
+        if (frame == mSourceFrame) {
+            return;
+        }
+        if (mSourceFrame != null) {
+            mSourceFrame.removeMirror(this);
+        }
+        mSourceFrame = frame;
+        if (frame != null) {
+            frame.addMirror(this);
+        }
+    }
+
+    View getSource() {
+        return mSource;
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        if (mSource == null) {
+            setMeasuredDimension(0, 0);
+            return;
+        }
+        // The source belongs to another frame, which measures it: the animator measures the
+        // frames of the sources before the ones of the mirrors, with the same specs
+        setMeasuredDimension(mSource.getMeasuredWidth(), mSource.getMeasuredHeight());
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        // The source draws itself at its own origin, the canvas is already translated to ours
+        if (mSource != null && mSource.getWidth() > 0 && mSource.getHeight() > 0) {
+            mSource.draw(canvas);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.andrearichiardi.android.avabackport.widget;
+
+/**
+ * This interface can be implemented by an adapter whose items need data loaded from disk or
+ * from the network before {@link android.widget.Adapter#getView(int, android.view.View,
+ * android.view.ViewGroup) getView} can bind them.
+ * <p>
+ * Every time the window of an {@link AdapterViewAnimator} moves, the animator tells the adapter
+ * which positions are going to enter it next, following the direction of the last flip and
+ * wrapping around when the animator loops. The adapter can then start loading their data on a
+ * background executor, well before their views are needed.
+ *
+ * @see AdapterViewAnimator#setDataPrefetchDistance(int)
+ * @author Andrea Richiardi
+ *
+ */
+public interface PrefetchingAdapter {
+
+    /**
+     * Called on the main thread, it should hand the loading over to another thread and return.
+     *
+     * @param positions The upcoming positions, the one needed first at index 0. The array is
+     *        reused, it is only valid during the call.
+     * @param count The number of positions in the array
+     * @param flipIntervalMillis The time between two flips when the animator flips by itself,
+     *        the position at index <code>k</code> being needed in about
+     *        <code>(k + 1) * flipIntervalMillis</code>, -1 if flips are triggered by the user.
+     */
+    public void onPrefetch(int[] positions, int count, long flipIntervalMillis);
+}
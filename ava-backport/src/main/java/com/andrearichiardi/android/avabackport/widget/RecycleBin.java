@@ -0,0 +1,225 @@
+package com.andrearichiardi.android.avabackport.widget;
+
+import java.util.ArrayList;
+
+import android.view.View;
+import android.widget.Adapter;
+import android.widget.FrameLayout;
+
+import com.nineoldandroids.view.ViewHelper;
+import com.nineoldandroids.view.animation.AnimatorProxy;
+
+/**
+ * Keeps the adapter views that left the window of an {@link AdapterViewAnimator}
+ * so that they can be handed back to the adapter as <code>convertView</code>.
+ * <p>
+ * Scrap views are kept per view type, as returned by {@link Adapter#getItemViewType(int)},
+ * next to a bounded heap of the frames wrapping them.
+ * It is loosely modelled after the RecycleBin of AbsListView.
+ * <p>
+ * When a {@link SharedViewPool} is set, views and frames go to the shared pool
+ * instead of the local heap.
+ *
+ * @author Andrea Richiardi
+ *
+ */
+class RecycleBin {
+
+    /**
+     * Default maximum number of scrap views kept for each view type, and of scrap frames.
+     */
+    static final int DEFAULT_MAX_SCRAP = 2;
+
+    private ArrayList<View>[] mScrapViews;
+    private final ArrayList<FrameLayout> mScrapFrames = new ArrayList<FrameLayout>(DEFAULT_MAX_SCRAP);
+    private int mViewTypeCount;
+    private int mMaxScrap = DEFAULT_MAX_SCRAP;
+
+    private SharedViewPool mSharedPool;
+
+    /**
+     * How many times the adapter gave back the scrap view it received.
+     */
+    private int mReusedCount;
+
+    /**
+     * How many times the adapter returned a view it had to create.
+     */
+    private int mCreatedCount;
+
+    RecycleBin() {
+        setViewTypeCount(1);
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    void setViewTypeCount(int viewTypeCount) {
+        if (viewTypeCount < 1) {
+            throw new IllegalArgumentException("Can't have a viewTypeCount < 1");
+        }
+        ArrayList<View>[] scrapViews = new ArrayList[viewTypeCount];
+        for (int i = 0; i < viewTypeCount; i++) {
+            scrapViews[i] = new ArrayList<View>(mMaxScrap);
+        }
+        mViewTypeCount = viewTypeCount;
+        mScrapViews = scrapViews;
+    }
+
+    /**
+     * Sets the maximum number of scrap views kept for each view type, and of scrap frames.
+     */
+    void setMaxScrap(int maxScrap) {
+        mMaxScrap = Math.max(1, maxScrap);
+        for (int i = 0; i < mViewTypeCount; i++) {
+            final ArrayList<View> scrap = mScrapViews[i];
+            while (scrap.size() > mMaxScrap) {
+                scrap.remove(scrap.size() - 1);
+            }
+        }
+        while (mScrapFrames.size() > mMaxScrap) {
+            mScrapFrames.remove(mScrapFrames.size() - 1);
+        }
+    }
+
+    /**
+     * Sets the pool shared with other animators, null to go back to the local heap.
+     */
+    void setSharedPool(SharedViewPool sharedPool) {
+        mSharedPool = sharedPool;
+        clear();
+    }
+
+    SharedViewPool getSharedPool() {
+        return mSharedPool;
+    }
+
+    boolean shouldRecycleViewType(int viewType) {
+        return viewType >= 0 && viewType < mViewTypeCount;
+    }
+
+    /**
+     * Puts a view into the scrap heap. The view must not have a parent anymore.
+     *
+     * @param scrap The view to add
+     * @param viewType The type of the view, as returned by the adapter when it was bound
+     */
+    void addScrapView(View scrap, int viewType) {
+        if (scrap == null || !shouldRecycleViewType(viewType)) {
+            return;
+        }
+        if (mSharedPool != null) {
+            scrap.setPressed(false);
+            mSharedPool.addScrapView(scrap, viewType);
+            return;
+        }
+        final ArrayList<View> scrapViews = mScrapViews[viewType];
+        if (scrapViews.size() < mMaxScrap) {
+            scrap.setPressed(false);
+            scrapViews.add(scrap);
+        }
+    }
+
+    /**
+     * @return A view from the scrap heap of the given type, or null if there is none.
+     */
+    View getScrapView(int viewType) {
+        if (!shouldRecycleViewType(viewType)) {
+            return null;
+        }
+        if (mSharedPool != null) {
+            return mSharedPool.getScrapView(viewType);
+        }
+        final ArrayList<View> scrapViews = mScrapViews[viewType];
+        final int size = scrapViews.size();
+        if (size > 0) {
+            return scrapViews.remove(size - 1);
+        }
+        return null;
+    }
+
+    /**
+     * Puts a frame, already emptied and removed from its parent, into the scrap heap.
+     * Only the default {@link TransitionFrame}s are kept, the ones customized by subclasses
+     * are left to the garbage collector.
+     */
+    void addScrapFrame(FrameLayout frame) {
+        if (frame == null || frame.getClass() != TransitionFrame.class) {
+            return;
+        }
+        if (mSharedPool != null) {
+            resetTransform(frame);
+            mSharedPool.addScrapFrame(frame);
+        } else if (mScrapFrames.size() < mMaxScrap) {
+            resetTransform(frame);
+            mScrapFrames.add(frame);
+        }
+    }
+
+    /**
+     * @return A frame from the scrap heap, or null if there is none.
+     */
+    FrameLayout getScrapFrame() {
+        if (mSharedPool != null) {
+            return mSharedPool.getScrapFrame();
+        }
+        final int size = mScrapFrames.size();
+        if (size > 0) {
+            return mScrapFrames.remove(size - 1);
+        }
+        return null;
+    }
+
+    /**
+     * Brings back the properties touched by the in and out animations.
+     * Before Honeycomb clearAnimation() has already dropped the AnimatorProxy.
+     */
+    static void resetTransform(View view) {
+        view.setPressed(false);
+        if (!AnimatorProxy.NEEDS_PROXY) {
+            ViewHelper.setAlpha(view, 1.0f);
+            ViewHelper.setTranslationX(view, 0.0f);
+            ViewHelper.setTranslationY(view, 0.0f);
+            ViewHelper.setScaleX(view, 1.0f);
+            ViewHelper.setScaleY(view, 1.0f);
+            ViewHelper.setRotation(view, 0.0f);
+            ViewHelper.setRotationX(view, 0.0f);
+            ViewHelper.setRotationY(view, 0.0f);
+        }
+    }
+
+    /**
+     * Updates the statistics once the adapter returned its view. A scrap view
+     * that the adapter did not use goes back into the heap.
+     *
+     * @param scrap The convertView given to the adapter, can be null
+     * @param child The view returned by the adapter
+     * @param viewType The type of both views
+     */
+    void onViewObtained(View scrap, View child, int viewType) {
+        if (scrap != null && scrap == child) {
+            mReusedCount++;
+        } else {
+            mCreatedCount++;
+            if (scrap != null) {
+                addScrapView(scrap, viewType);
+            }
+        }
+    }
+
+    /**
+     * Clears the local scrap heap, the shared pool is left untouched.
+     */
+    void clear() {
+        for (int i = 0; i < mViewTypeCount; i++) {
+            mScrapViews[i].clear();
+        }
+        mScrapFrames.clear();
+    }
+
+    int getReusedCount() {
+        return mReusedCount;
+    }
+
+    int getCreatedCount() {
+        return mCreatedCount;
+    }
+}
@@ -0,0 +1,172 @@
+package com.andrearichiardi.android.avabackport.widget;
+
+import java.util.ArrayList;
+
+import android.util.SparseArray;
+import android.view.View;
+import android.widget.Adapter;
+import android.widget.FrameLayout;
+
+/**
+ * A pool of scrap views that several {@link AdapterViewAnimator} instances can share.
+ * <p>
+ * The item views dropped by one animator can be given as <code>convertView</code>
+ * to the adapter of another one, and the same goes for the frames wrapping them.
+ * The pool keeps the views per view type (see {@link Adapter#getItemViewType(int)}),
+ * therefore all the animators registered with it must use adapters that agree on
+ * the meaning of their view types, typically adapters using the same item layouts.
+ * <p>
+ * The number of views kept by the pool, frames included, never exceeds the maximum size.
+ * The pool is not thread safe and must be used from the UI thread only. Because the
+ * views hold a reference to their {@link android.content.Context}, a pool should not
+ * outlive the Activity whose animators use it.
+ *
+ * @see AdapterViewAnimator#setSharedViewPool(SharedViewPool)
+ * @author Andrea Richiardi
+ *
+ */
+public class SharedViewPool {
+
+    /**
+     * Default maximum number of views kept by the pool.
+     */
+    public static final int DEFAULT_MAX_SIZE = 32;
+
+    private final SparseArray<ArrayList<View>> mScrapViews = new SparseArray<ArrayList<View>>();
+    private final ArrayList<FrameLayout> mScrapFrames = new ArrayList<FrameLayout>();
+
+    private int mMaxSize;
+    private int mSize;
+    private int mRegisteredCount;
+
+    public SharedViewPool() {
+        this(DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * @param maxSize The maximum number of views, frames included, kept by the pool.
+     */
+    public SharedViewPool(int maxSize) {
+        setMaxSize(maxSize);
+    }
+
+    /**
+     * Sets the maximum number of views, frames included, kept by the pool.
+     * Views exceeding the new size are dropped.
+     *
+     * @param maxSize The new maximum size
+     */
+    public void setMaxSize(int maxSize) {
+        if (maxSize < 0) {
+            throw new IllegalArgumentException("Can't have a maxSize < 0");
+        }
+        mMaxSize = maxSize;
+        while (mSize > mMaxSize && !mScrapFrames.isEmpty()) {
+            mScrapFrames.remove(mScrapFrames.size() - 1);
+            mSize--;
+        }
+        for (int i = 0; mSize > mMaxSize && i < mScrapViews.size(); i++) {
+            final ArrayList<View> scrap = mScrapViews.valueAt(i);
+            while (mSize > mMaxSize && !scrap.isEmpty()) {
+                scrap.remove(scrap.size() - 1);
+                mSize--;
+            }
+        }
+    }
+
+    /**
+     * @return The maximum number of views kept by the pool.
+     */
+    public int getMaxSize() {
+        return mMaxSize;
+    }
+
+    /**
+     * @return The number of views, frames included, currently in the pool.
+     */
+    public int getSize() {
+        return mSize;
+    }
+
+    /**
+     * @return The number of {@link AdapterViewAnimator} attached to a window and using this pool.
+     */
+    public int getRegisteredCount() {
+        return mRegisteredCount;
+    }
+
+    /**
+     * Drops every view in the pool.
+     */
+    public void clear() {
+        for (int i = 0; i < mScrapViews.size(); i++) {
+            mScrapViews.valueAt(i).clear();
+        }
+        mScrapFrames.clear();
+        mSize = 0;
+    }
+
+    void register() {
+        mRegisteredCount++;
+    }
+
+    /**
+     * The views are dropped when the last animator goes away, that is, is detached from its
+     * window or moves to another pool, so that the pool does not keep them alive for nothing.
+     */
+    void unregister() {
+        if (mRegisteredCount > 0 && --mRegisteredCount == 0) {
+            clear();
+        }
+    }
+
+    /**
+     * @return True if the view has been added, false if the pool is full.
+     */
+    boolean addScrapView(View scrap, int viewType) {
+        if (mSize >= mMaxSize) {
+            return false;
+        }
+        ArrayList<View> scrapViews = mScrapViews.get(viewType);
+        if (scrapViews == null) {
+            scrapViews = new ArrayList<View>();
+            mScrapViews.put(viewType, scrapViews);
+        }
+        scrapViews.add(scrap);
+        mSize++;
+        return true;
+    }
+
+    View getScrapView(int viewType) {
+        final ArrayList<View> scrapViews = mScrapViews.get(viewType);
+        if (scrapViews != null) {
+            final int size = scrapViews.size();
+            if (size > 0) {
+                mSize--;
+                return scrapViews.remove(size - 1);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return True if the frame has been added, false if the pool is full.
+     */
+    boolean addScrapFrame(FrameLayout frame) {
+        if (mSize >= mMaxSize) {
+            return false;
+        }
+        mScrapFrames.add(frame);
+        mSize++;
+        return true;
+    }
+
+    FrameLayout getScrapFrame() {
+        final int size = mScrapFrames.size();
+        if (size > 0) {
+            mSize--;
+            return mScrapFrames.remove(size - 1);
+        }
+        return null;
+    }
+}
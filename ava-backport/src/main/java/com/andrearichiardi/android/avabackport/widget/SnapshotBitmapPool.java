@@ -0,0 +1,72 @@
+package com.andrearichiardi.android.avabackport.widget;
+
+import java.util.ArrayList;
+
+import android.graphics.Bitmap;
+import android.util.Log;
+
+/**
+ * The bitmaps the frames of an {@link AdapterViewAnimator} draw their snapshot into during
+ * a transition, see {@link TransitionFrame}.
+ * <p>
+ * The frames of an animator usually have the same size, so a handful of bitmaps are enough
+ * for every transition: released bitmaps are kept and handed out again for the same size.
+ * Bitmaps dropped by the pool are recycled right away, their memory being native before
+ * Honeycomb.
+ *
+ * @author Andrea Richiardi
+ *
+ */
+final class SnapshotBitmapPool {
+
+    private static final String TAG = "com.andrearichiardi.android.widget.SnapshotBitmapPool";
+
+    /**
+     * Maximum number of released bitmaps kept.
+     */
+    static final int MAX_SIZE = 4;
+
+    private final ArrayList<Bitmap> mBitmaps = new ArrayList<Bitmap>(MAX_SIZE);
+
+    /**
+     * @return A bitmap of the given size, with undefined content, null if there is not enough
+     *         memory for it.
+     */
+    Bitmap obtain(int width, int height) {
+        for (int i = mBitmaps.size() - 1; i >= 0; i--) {
+            final Bitmap bitmap = mBitmaps.get(i);
+            if (bitmap.getWidth() == width && bitmap.getHeight() == height) {
+                return mBitmaps.remove(i);
+            }
+        }
+        try {
+            return Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+        } catch (OutOfMemoryError e) {
+            // The frame keeps drawing its views
+            Log.w(TAG, "No memory for a " + width + "x" + height + " snapshot");
+            clear();
+            return null;
+        }
+    }
+
+    void release(Bitmap bitmap) {
+        if (mBitmaps.size() == MAX_SIZE) {
+            mBitmaps.remove(0).recycle();
+        }
+        mBitmaps.add(bitmap);
+    }
+
+    /**
+     * Recycles the bitmaps kept, not the ones handed out.
+     */
+    void clear() {
+        for (int i = 0; i < mBitmaps.size(); i++) {
+            mBitmaps.get(i).recycle();
+        }
+        mBitmaps.clear();
+    }
+
+    int size() {
+        return mBitmaps.size();
+    }
+}
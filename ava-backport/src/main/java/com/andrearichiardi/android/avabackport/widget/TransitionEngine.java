@@ -0,0 +1,196 @@
+package com.andrearichiardi.android.avabackport.widget;
+
+import android.graphics.Matrix;
+import android.view.View;
+import android.view.animation.Transformation;
+
+/**
+ * Runs the {@link FrameTransition}s of the children of an {@link AdapterViewAnimator}.
+ * <p>
+ * There is no timer per transition: the animator draws, asks the engine for the static
+ * transformation of each child and, after drawing, calls {@link #onFrame(long)}, which tells
+ * whether another frame is needed. The draw pass of the animator is therefore the single frame
+ * pulse of all its transitions, which start on the first frame they are drawn in.
+ * <p>
+ * A transition ending away from the identity, typically an out transition, keeps its final
+ * transformation until its child is cancelled, so that the child does not pop back before
+ * being removed.
+ *
+ * @author Andrea Richiardi
+ *
+ */
+final class TransitionEngine {
+
+    private static final long NOT_STARTED = -1;
+
+    private View[] mTargets = new View[4];
+    private FrameTransition[] mTransitions = new FrameTransition[4];
+    private long[] mStartTimes = new long[4];
+    private int mCount;
+    private TransitionListener mListener;
+
+    /**
+     * @param listener Told when a view loses its transition, can be null
+     */
+    void setTransitionListener(TransitionListener listener) {
+        mListener = listener;
+    }
+
+    /**
+     * Runs a transition on a view, replacing the one it was running, if any.
+     */
+    void start(FrameTransition transition, View target) {
+        int i = indexOf(target);
+        if (i < 0) {
+            if (mCount == mTargets.length) {
+                final int capacity = mCount * 2;
+                mTargets = ArrayUtils.grow(mTargets, capacity);
+                mTransitions = ArrayUtils.grow(mTransitions, capacity);
+                mStartTimes = ArrayUtils.grow(mStartTimes, capacity);
+            }
+            i = mCount++;
+            mTargets[i] = target;
+        }
+        mTransitions[i] = transition;
+        mStartTimes[i] = NOT_STARTED;
+    }
+
+    private int indexOf(View target) {
+        for (int i = 0; i < mCount; i++) {
+            if (mTargets[i] == target) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void remove(int i) {
+        final View target = mTargets[i];
+        final int last = --mCount;
+        mTargets[i] = mTargets[last];
+        mTransitions[i] = mTransitions[last];
+        mStartTimes[i] = mStartTimes[last];
+        mTargets[last] = null;
+        mTransitions[last] = null;
+        if (mListener != null) {
+            mListener.onTransitionEnd(target);
+        }
+    }
+
+    /**
+     * Forgets the transition of a view, which is drawn untransformed from now on.
+     *
+     * @return True if the view had a transition.
+     */
+    boolean cancel(View target) {
+        final int i = indexOf(target);
+        if (i < 0) {
+            return false;
+        }
+        remove(i);
+        return true;
+    }
+
+    /**
+     * Forgets every transition.
+     */
+    void clear() {
+        while (mCount > 0) {
+            remove(mCount - 1);
+        }
+    }
+
+    /**
+     * Brings every transition to its end, as if its duration had elapsed.
+     */
+    void finishAll() {
+        for (int i = mCount - 1; i >= 0; i--) {
+            if (mTransitions[i].endsAtIdentity()) {
+                remove(i);
+            } else {
+                mStartTimes[i] = Long.MIN_VALUE / 2;
+            }
+        }
+    }
+
+    /**
+     * Sets the transformation of a child for the frame being drawn.
+     *
+     * @param child The child being drawn
+     * @param drawingTime The time of the frame
+     * @param t The transformation to fill
+     * @return True if the child has a transition, false if it is drawn untransformed.
+     */
+    boolean getTransformation(View child, long drawingTime, Transformation t) {
+        final int i = indexOf(child);
+        if (i < 0) {
+            return false;
+        }
+        if (mStartTimes[i] == NOT_STARTED) {
+            mStartTimes[i] = drawingTime;
+        }
+        final FrameTransition transition = mTransitions[i];
+        final long duration = transition.getDuration();
+        final long elapsed = drawingTime - mStartTimes[i];
+        final float fraction = duration == 0 || elapsed >= duration ? 1.0f
+                : Math.max(0.0f, elapsed / (float) duration);
+        final float interpolated = transition.getInterpolation(fraction);
+
+        t.clear();
+        t.setTransformationType(Transformation.TYPE_BOTH);
+        t.setAlpha(transition.getValue(FrameTransition.ALPHA, interpolated));
+        final Matrix matrix = t.getMatrix();
+        matrix.setScale(transition.getValue(FrameTransition.SCALE_X, interpolated),
+                transition.getValue(FrameTransition.SCALE_Y, interpolated),
+                child.getWidth() / 2.0f, child.getHeight() / 2.0f);
+        matrix.postTranslate(transition.getValue(FrameTransition.TRANSLATION_X, interpolated),
+                transition.getValue(FrameTransition.TRANSLATION_Y, interpolated));
+        return true;
+    }
+
+    /**
+     * Called once a frame has been drawn, drops the transitions that are over and end at
+     * the identity.
+     *
+     * @param drawingTime The time of the frame
+     * @return True if the animator must draw another frame.
+     */
+    boolean onFrame(long drawingTime) {
+        boolean needsFrame = false;
+        for (int i = mCount - 1; i >= 0; i--) {
+            if (isRunning(i, drawingTime)) {
+                needsFrame = true;
+            } else if (mTransitions[i].endsAtIdentity()) {
+                remove(i);
+                // One more frame without the transformation
+                needsFrame = true;
+            }
+        }
+        return needsFrame;
+    }
+
+    private boolean isRunning(int i, long time) {
+        return mStartTimes[i] == NOT_STARTED
+                || time - mStartTimes[i] < mTransitions[i].getDuration();
+    }
+
+    /**
+     * @return The number of transitions that are not over at the given time.
+     */
+    int getRunningCount(long time) {
+        int count = 0;
+        for (int i = 0; i < mCount; i++) {
+            if (isRunning(i, time)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return True if the view has a transition, running or holding its end.
+     */
+    boolean hasTransition(View target) {
+        return indexOf(target) >= 0;
+    }
+}
@@ -0,0 +1,214 @@
+package com.andrearichiardi.android.avabackport.widget;
+
+import java.util.ArrayList;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Rect;
+import android.view.ViewParent;
+import android.view.ViewTreeObserver;
+import android.widget.FrameLayout;
+
+/**
+ * The frame wrapping the adapter views of an {@link AdapterViewAnimator}, which can draw a
+ * snapshot of its content instead of its content.
+ * <p>
+ * When asked for it, the frame draws its children once into a bitmap on the next frame, then
+ * keeps drawing that bitmap until the snapshot is cleared, typically when its transition is
+ * over. Animating a frame then costs a bitmap blit per frame whatever the complexity of the
+ * adapter view, which is not drawn meanwhile. The children are not touched: they stay attached
+ * and laid out, and are drawn again as soon as the snapshot is cleared.
+ * <p>
+ * The frame also redraws the {@link MirrorView}s of its child whenever the child is
+ * invalidated, since the mirrors are elsewhere in the hierarchy and do not hear of it.
+ *
+ * @see AdapterViewAnimator#setSnapshotTransitions(boolean)
+ * @author Andrea Richiardi
+ *
+ */
+class TransitionFrame extends FrameLayout {
+
+    private SnapshotBitmapPool mPool;
+    private Bitmap mSnapshot;
+    private boolean mSnapshotRequested;
+    private Canvas mSnapshotCanvas;
+
+    /**
+     * True if {@link #isDirty()} exists, from API 11, see {@link #mMirrorsUpdater}
+     */
+    private static final boolean DIRTY_FLAG_SUPPORTED = AdapterViewAnimator.getSdkVersion() >= 11;
+
+    /**
+     * The mirrors drawing the child of this frame, created with the first one
+     */
+    private ArrayList<MirrorView> mMirrors;
+    private boolean mMirrorsUpdaterAdded;
+
+    /**
+     * Redraws the mirrors when a descendant has been invalidated. From API 26, when hardware
+     * accelerated, invalidations reach the parents without going through
+     * {@link #invalidateChildInParent(int[], Rect)}, only leaving them dirty.
+     */
+    private final ViewTreeObserver.OnPreDrawListener mMirrorsUpdater =
+            new ViewTreeObserver.OnPreDrawListener() {
+                @Override
+                public boolean onPreDraw() {
+                    if (isDirty()) {
+                        invalidateMirrors();
+                    }
+                    return true;
+                }
+            };
+
+    TransitionFrame(Context context) {
+        super(context);
+    }
+
+    /**
+     * Redraws a mirror along with the child of this frame, see {@link MirrorView#setSource(android.view.View)}.
+     */
+    void addMirror(MirrorView mirror) {
+        if (mMirrors == null) {
+            mMirrors = new ArrayList<MirrorView>(2);
+        }
+        mMirrors.add(mirror);
+        updateMirrorsUpdater();
+    }
+
+    void removeMirror(MirrorView mirror) {
+        if (mMirrors != null && mMirrors.remove(mirror)) {
+            updateMirrorsUpdater();
+        }
+    }
+
+    /**
+     * Lets the mirrors registered here find the frame now holding their source, after it
+     * moved to another frame.
+     */
+    void retargetMirrors() {
+        if (mMirrors == null) {
+            return;
+        }
+        // Backwards, a retargeted mirror leaves the list
+        for (int i = mMirrors.size() - 1; i >= 0; i--) {
+            if (i < mMirrors.size()) {
+                mMirrors.get(i).updateSourceFrame();
+            }
+        }
+    }
+
+    int getMirrorCount() {
+        return mMirrors == null ? 0 : mMirrors.size();
+    }
+
+    private void invalidateMirrors() {
+        for (int i = 0; i < mMirrors.size(); i++) {
+            mMirrors.get(i).invalidate();
+        }
+    }
+
+    @Override
+    public ViewParent invalidateChildInParent(int[] location, Rect dirty) {
+        if (mMirrors != null) {
+            invalidateMirrors();
+        }
+        return super.invalidateChildInParent(location, dirty);
+    }
+
+    /**
+     * Listens to the draws while the frame is attached and has mirrors.
+     */
+    private void updateMirrorsUpdater() {
+        final boolean needed = DIRTY_FLAG_SUPPORTED && getWindowToken() != null
+                && mMirrors != null && !mMirrors.isEmpty();
+        if (needed == mMirrorsUpdaterAdded) {
+            return;
+        }
+        mMirrorsUpdaterAdded = needed;
+        if (needed) {
+            getViewTreeObserver().addOnPreDrawListener(mMirrorsUpdater);
+        } else {
+            getViewTreeObserver().removeOnPreDrawListener(mMirrorsUpdater);
+        }
+    }
+
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        updateMirrorsUpdater();
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        // Still attached, the listener is removed from the observer it was added to
+        if (mMirrorsUpdaterAdded) {
+            mMirrorsUpdaterAdded = false;
+            getViewTreeObserver().removeOnPreDrawListener(mMirrorsUpdater);
+        }
+        super.onDetachedFromWindow();
+    }
+
+    /**
+     * Takes a snapshot of the children the next time the frame is drawn.
+     *
+     * @param pool Where the bitmap comes from and goes back to
+     */
+    void requestSnapshot(SnapshotBitmapPool pool) {
+        if (mSnapshot != null) {
+            return;
+        }
+        mPool = pool;
+        mSnapshotRequested = true;
+        invalidate();
+    }
+
+    /**
+     * Gives the bitmap back to its pool, the children are drawn again.
+     */
+    void clearSnapshot() {
+        mSnapshotRequested = false;
+        if (mSnapshot != null) {
+            mPool.release(mSnapshot);
+            mSnapshot = null;
+            invalidate();
+        }
+    }
+
+    boolean hasSnapshot() {
+        return mSnapshot != null;
+    }
+
+    @Override
+    protected void dispatchDraw(Canvas canvas) {
+        if (mSnapshotRequested) {
+            takeSnapshot();
+        }
+        if (mSnapshot != null) {
+            canvas.drawBitmap(mSnapshot, 0, 0, null);
+        } else {
+            super.dispatchDraw(canvas);
+        }
+    }
+
+    private void takeSnapshot() {
+        final int width = getWidth();
+        final int height = getHeight();
+        if (width <= 0 || height <= 0) {
+            // Not laid out yet, next time
+            return;
+        }
+        mSnapshotRequested = false;
+        final Bitmap bitmap = mPool.obtain(width, height);
+        if (bitmap == null) {
+            return;
+        }
+        bitmap.eraseColor(0);
+        if (mSnapshotCanvas == null) {
+            mSnapshotCanvas = new Canvas();
+        }
+        mSnapshotCanvas.setBitmap(bitmap);
+        super.dispatchDraw(mSnapshotCanvas);
+        mSnapshot = bitmap;
+    }
+}
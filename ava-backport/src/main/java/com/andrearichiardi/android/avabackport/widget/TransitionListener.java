@@ -0,0 +1,14 @@
+package com.andrearichiardi.android.avabackport.widget;
+
+import android.view.View;
+
+/**
+ * Told when a view is done with its in or out transition, whether it ended or was cancelled.
+ *
+ * @author Andrea Richiardi
+ *
+ */
+interface TransitionListener {
+
+    void onTransitionEnd(View target);
+}
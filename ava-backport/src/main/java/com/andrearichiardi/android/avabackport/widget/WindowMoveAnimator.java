@@ -0,0 +1,253 @@
+package com.andrearichiardi.android.avabackport.widget;
+
+import java.util.Arrays;
+
+import android.view.View;
+
+import com.nineoldandroids.animation.ValueAnimator;
+import com.nineoldandroids.view.ViewHelper;
+
+/**
+ * Animates the children of an {@link AdapterViewAnimator} that stay in the window but move to
+ * another relative index.
+ * <p>
+ * The transform of a relative index is whatever
+ * {@link AdapterViewAnimator#applyTransformForChildAtIndex(View, int)} sets through the view
+ * properties (alpha, translation, scale and rotation). The properties of a moving child are
+ * read before and after the transform of its new index is applied, then the child is put back
+ * where it was and a single {@link ValueAnimator}, shared by all the moving children, brings
+ * each of them from the old values to the new ones. Moving N children costs one animator and
+ * one update per frame. Only the properties that differ between the two indexes are animated,
+ * the others are left to the in and out animations.
+ * <p>
+ * A move starting while the previous one runs continues from where the children are, so that
+ * nothing jumps.
+ *
+ * @author Andrea Richiardi
+ *
+ */
+final class WindowMoveAnimator implements ValueAnimator.AnimatorUpdateListener {
+
+    private static final int ALPHA = 0;
+    private static final int TRANSLATION_X = 1;
+    private static final int TRANSLATION_Y = 2;
+    private static final int SCALE_X = 3;
+    private static final int SCALE_Y = 4;
+    private static final int ROTATION = 5;
+    private static final int ROTATION_X = 6;
+    private static final int ROTATION_Y = 7;
+    private static final int PROPERTY_COUNT = 8;
+
+    private final ValueAnimator mDriver = ValueAnimator.ofFloat(0.0f, 1.0f);
+
+    private View[] mViews = new View[4];
+    private float[] mFrom = new float[4 * PROPERTY_COUNT];
+    private float[] mTo = new float[4 * PROPERTY_COUNT];
+    private float[] mValues = new float[4 * PROPERTY_COUNT];
+
+    /**
+     * The animated properties of each child, one bit per property
+     */
+    private int[] mMasks = new int[4];
+    private int mCount;
+
+    WindowMoveAnimator(long duration) {
+        mDriver.setDuration(duration);
+        mDriver.addUpdateListener(this);
+    }
+
+    void setDuration(long duration) {
+        mDriver.setDuration(duration);
+    }
+
+    long getDuration() {
+        return mDriver.getDuration();
+    }
+
+    /**
+     * Prepares a new move: the children still moving continue from their current values,
+     * the others are forgotten.
+     */
+    void rebase() {
+        if (!mDriver.isRunning()) {
+            clear();
+            return;
+        }
+        for (int i = 0; i < mCount; i++) {
+            read(mViews[i], mFrom, i * PROPERTY_COUNT);
+        }
+    }
+
+    /**
+     * Records the values of a child before the transform of its new index is applied.
+     */
+    void captureStart(View view) {
+        int i = indexOf(view);
+        if (i < 0) {
+            if (mCount == mViews.length) {
+                final int capacity = mCount * 2;
+                mViews = ArrayUtils.grow(mViews, capacity);
+                mFrom = ArrayUtils.grow(mFrom, capacity * PROPERTY_COUNT);
+                mTo = ArrayUtils.grow(mTo, capacity * PROPERTY_COUNT);
+                mValues = new float[capacity * PROPERTY_COUNT];
+                mMasks = ArrayUtils.grow(mMasks, capacity);
+            }
+            i = mCount++;
+            mViews[i] = view;
+            mMasks[i] = 0;
+        }
+        read(view, mFrom, i * PROPERTY_COUNT);
+    }
+
+    /**
+     * Records the values of a child once the transform of its new index is applied, then puts
+     * the child back where the move starts.
+     */
+    void captureEnd(View view) {
+        final int i = indexOf(view);
+        if (i < 0) {
+            return;
+        }
+        final int offset = i * PROPERTY_COUNT;
+        read(view, mTo, offset);
+        // Added to the properties of the move being continued, if any
+        int mask = mMasks[i];
+        for (int property = 0; property < PROPERTY_COUNT; property++) {
+            if (mFrom[offset + property] != mTo[offset + property]) {
+                mask |= 1 << property;
+            }
+        }
+        if (mask != 0) {
+            mMasks[i] = mask;
+            write(view, mFrom, offset, mask);
+        } else {
+            remove(i);
+        }
+    }
+
+    /**
+     * Starts moving the captured children, restarting the move if it was running.
+     */
+    void start() {
+        if (mCount == 0) {
+            return;
+        }
+        // No listener reacts to the end, cancelling only stops the updates
+        mDriver.cancel();
+        mDriver.start();
+    }
+
+    /**
+     * Stops moving a child, for example because it left the window.
+     */
+    void cancel(View view) {
+        final int i = indexOf(view);
+        if (i >= 0) {
+            remove(i);
+        }
+    }
+
+    /**
+     * Brings every child to the end of its move.
+     */
+    void end() {
+        for (int i = 0; i < mCount; i++) {
+            write(mViews[i], mTo, i * PROPERTY_COUNT, mMasks[i]);
+        }
+        clear();
+        mDriver.cancel();
+    }
+
+    boolean isRunning() {
+        return mCount > 0 && mDriver.isRunning();
+    }
+
+    /**
+     * @return True if the view is being moved.
+     */
+    boolean isMoving(View view) {
+        return mDriver.isRunning() && indexOf(view) >= 0;
+    }
+
+    /**
+     * @return The number of children being moved.
+     */
+    int getCount() {
+        return mCount;
+    }
+
+    @Override
+    public void onAnimationUpdate(ValueAnimator animation) {
+        // The interpolated fraction, getAnimatedValue() would box it
+        final float fraction = animation.getAnimatedFraction();
+        for (int i = 0; i < mCount; i++) {
+            final int offset = i * PROPERTY_COUNT;
+            for (int property = 0; property < PROPERTY_COUNT; property++) {
+                final int index = offset + property;
+                mValues[index] = mFrom[index] + fraction * (mTo[index] - mFrom[index]);
+            }
+            write(mViews[i], mValues, offset, mMasks[i]);
+        }
+    }
+
+    private int indexOf(View view) {
+        for (int i = 0; i < mCount; i++) {
+            if (mViews[i] == view) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void remove(int i) {
+        final int last = --mCount;
+        mViews[i] = mViews[last];
+        mViews[last] = null;
+        System.arraycopy(mFrom, last * PROPERTY_COUNT, mFrom, i * PROPERTY_COUNT, PROPERTY_COUNT);
+        System.arraycopy(mTo, last * PROPERTY_COUNT, mTo, i * PROPERTY_COUNT, PROPERTY_COUNT);
+        mMasks[i] = mMasks[last];
+    }
+
+    private void clear() {
+        Arrays.fill(mViews, 0, mCount, null);
+        mCount = 0;
+    }
+
+    private static void read(View view, float[] values, int offset) {
+        values[offset + ALPHA] = ViewHelper.getAlpha(view);
+        values[offset + TRANSLATION_X] = ViewHelper.getTranslationX(view);
+        values[offset + TRANSLATION_Y] = ViewHelper.getTranslationY(view);
+        values[offset + SCALE_X] = ViewHelper.getScaleX(view);
+        values[offset + SCALE_Y] = ViewHelper.getScaleY(view);
+        values[offset + ROTATION] = ViewHelper.getRotation(view);
+        values[offset + ROTATION_X] = ViewHelper.getRotationX(view);
+        values[offset + ROTATION_Y] = ViewHelper.getRotationY(view);
+    }
+
+    private static void write(View view, float[] values, int offset, int mask) {
+        if ((mask & (1 << ALPHA)) != 0) {
+            ViewHelper.setAlpha(view, values[offset + ALPHA]);
+        }
+        if ((mask & (1 << TRANSLATION_X)) != 0) {
+            ViewHelper.setTranslationX(view, values[offset + TRANSLATION_X]);
+        }
+        if ((mask & (1 << TRANSLATION_Y)) != 0) {
+            ViewHelper.setTranslationY(view, values[offset + TRANSLATION_Y]);
+        }
+        if ((mask & (1 << SCALE_X)) != 0) {
+            ViewHelper.setScaleX(view, values[offset + SCALE_X]);
+        }
+        if ((mask & (1 << SCALE_Y)) != 0) {
+            ViewHelper.setScaleY(view, values[offset + SCALE_Y]);
+        }
+        if ((mask & (1 << ROTATION)) != 0) {
+            ViewHelper.setRotation(view, values[offset + ROTATION]);
+        }
+        if ((mask & (1 << ROTATION_X)) != 0) {
+            ViewHelper.setRotationX(view, values[offset + ROTATION_X]);
+        }
+        if ((mask & (1 << ROTATION_Y)) != 0) {
+            ViewHelper.setRotationY(view, values[offset + ROTATION_Y]);
+        }
+    }
+}
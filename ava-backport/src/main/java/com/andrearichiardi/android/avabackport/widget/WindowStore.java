@@ -0,0 +1,260 @@
+package com.andrearichiardi.android.avabackport.widget;
+
+import java.util.Arrays;
+
+/**
+ * The entries of the window of an {@link AdapterViewAnimator}, kept in a ring buffer.
+ * <p>
+ * The window covers <code>span</code> consecutive keys starting at <code>startKey</code>, the
+ * keys wrapping around at <code>modulus</code>, that is, the window size of the animator. The
+ * entry of a key lives in the slot <code>(head + (key - startKey) mod modulus) & mask</code>,
+ * therefore {@link #get(int)} and {@link #put(int, Object)} run in constant time.
+ * <p>
+ * When the window moves the head moves along with it, so that the entries staying in the
+ * window keep their slot and only the ones falling out of it are touched: they are retired to
+ * a removal queue, from which the animator removes their views on the next pass. Moving the
+ * window by one position costs O(1). The store allocates only when the window grows beyond
+ * its capacity.
+ *
+ * @param <E> The type of the entries
+ * @author Andrea Richiardi
+ *
+ */
+class WindowStore<E> {
+
+    private static final int MIN_CAPACITY = 4;
+
+    private Object[] mSlots;
+    private int mMask;
+    private int mHead;
+
+    private int mStartKey;
+    private int mSpan;
+    private int mModulus;
+
+    /**
+     * Entries that left the window, waiting for their views to be removed
+     */
+    private Object[] mRetired;
+    private int mRetiredCount;
+
+    /**
+     * Scratch arrays of {@link #relocate(int, int, int)}
+     */
+    private Object[] mScratch;
+    private int[] mScratchKeys;
+
+    WindowStore() {
+        this(MIN_CAPACITY);
+    }
+
+    /**
+     * @param span The number of keys the window will cover without growing.
+     */
+    WindowStore(int span) {
+        final int capacity = capacityFor(span);
+        mSlots = new Object[capacity];
+        mMask = capacity - 1;
+        mRetired = new Object[capacity];
+        mScratch = new Object[capacity];
+        mScratchKeys = new int[capacity];
+    }
+
+    private static int capacityFor(int span) {
+        int capacity = MIN_CAPACITY;
+        while (capacity < span) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    /**
+     * @return The position of the key in the window, -1 if it is outside of it.
+     */
+    private int positionOf(int key) {
+        if (key < 0 || key >= mModulus) {
+            return -1;
+        }
+        int position = key - mStartKey;
+        if (position < 0) {
+            position += mModulus;
+        }
+        return position < mSpan ? position : -1;
+    }
+
+    /**
+     * @return The entry of the key, null if there is none or if the key is outside of the window.
+     */
+    @SuppressWarnings("unchecked")
+    E get(int key) {
+        final int position = positionOf(key);
+        return position < 0 ? null : (E) mSlots[(mHead + position) & mMask];
+    }
+
+    /**
+     * @param position The position in the window, between 0 and {@link #getSpan()} excluded
+     * @return The entry at that position, can be null.
+     */
+    @SuppressWarnings("unchecked")
+    E getAt(int position) {
+        return (E) mSlots[(mHead + position) & mMask];
+    }
+
+    /**
+     * Sets the entry of a key, which must be in the window.
+     */
+    void put(int key, E entry) {
+        final int position = positionOf(key);
+        if (position < 0) {
+            throw new IllegalArgumentException("Key " + key + " is outside of the window ["
+                    + mStartKey + ", " + mSpan + ", " + mModulus + "]");
+        }
+        mSlots[(mHead + position) & mMask] = entry;
+    }
+
+    /**
+     * @return The number of keys covered by the window.
+     */
+    int getSpan() {
+        return mSpan;
+    }
+
+    /**
+     * Moves the window, the entries falling out of it are retired.
+     *
+     * @param startKey The first key of the window
+     * @param span The number of keys covered by the window, not greater than modulus
+     * @param modulus The number of keys, at which they wrap around
+     */
+    void moveWindow(int startKey, int span, int modulus) {
+        if (span > mSlots.length || modulus != mModulus) {
+            relocate(startKey, span, modulus);
+            return;
+        }
+
+        final int oldSpan = mSpan;
+        int shift = startKey - mStartKey;
+        if (shift < 0) {
+            shift += modulus;
+        }
+        // The entries staying in the window moved either forward by shift or backward by
+        // modulus - shift positions. If both happen, the two windows overlap at both ends.
+        final boolean forward = shift < oldSpan;
+        final boolean backward = oldSpan > 0 && modulus - shift < span;
+        if (forward && backward) {
+            relocate(startKey, span, modulus);
+            return;
+        }
+
+        if (forward) {
+            retire(0, shift);
+            retire(shift + span, oldSpan);
+            mHead = (mHead + shift) & mMask;
+        } else if (backward) {
+            final int backShift = shift - modulus;
+            retire(backShift + span, oldSpan);
+            mHead = (mHead + backShift) & mMask;
+        } else {
+            retire(0, oldSpan);
+        }
+        mStartKey = startKey;
+        mSpan = span;
+    }
+
+    /**
+     * Retires the entries at the positions in [from, to) of the window.
+     */
+    private void retire(int from, int to) {
+        for (int position = Math.max(0, from); position < to; position++) {
+            final int slot = (mHead + position) & mMask;
+            if (mSlots[slot] != null) {
+                addRetired(mSlots[slot]);
+                mSlots[slot] = null;
+            }
+        }
+    }
+
+    private void addRetired(Object entry) {
+        if (mRetiredCount == mRetired.length) {
+            mRetired = ArrayUtils.grow(mRetired, mRetiredCount * 2);
+        }
+        mRetired[mRetiredCount++] = entry;
+    }
+
+    /**
+     * Moves every entry to its slot in the new window, the slow path of
+     * {@link #moveWindow(int, int, int)} taken when the window grows, when the modulus
+     * changes or when the old and the new window overlap at both ends.
+     */
+    private void relocate(int startKey, int span, int modulus) {
+        int count = 0;
+        for (int position = 0; position < mSpan; position++) {
+            final int slot = (mHead + position) & mMask;
+            if (mSlots[slot] != null) {
+                mScratch[count] = mSlots[slot];
+                // Without (mStartKey + position) % mModulus, which overflows for huge moduli
+                mScratchKeys[count] = position < mModulus - mStartKey ? mStartKey + position
+                        : position - (mModulus - mStartKey);
+                count++;
+                mSlots[slot] = null;
+            }
+        }
+
+        final boolean grow = span > mSlots.length;
+        if (grow) {
+            final int capacity = capacityFor(span);
+            mSlots = new Object[capacity];
+            mMask = capacity - 1;
+        }
+        mHead = 0;
+        mStartKey = startKey;
+        mSpan = span;
+        mModulus = modulus;
+
+        for (int i = 0; i < count; i++) {
+            final int position = positionOf(mScratchKeys[i]);
+            if (position >= 0) {
+                mSlots[position] = mScratch[i];
+            } else {
+                addRetired(mScratch[i]);
+            }
+            mScratch[i] = null;
+        }
+
+        if (grow) {
+            mScratch = new Object[mSlots.length];
+            mScratchKeys = new int[mSlots.length];
+        }
+    }
+
+    /**
+     * @return The number of entries waiting for their views to be removed.
+     */
+    int getRetiredCount() {
+        return mRetiredCount;
+    }
+
+    @SuppressWarnings("unchecked")
+    E getRetired(int index) {
+        return (E) mRetired[index];
+    }
+
+    void clearRetired() {
+        Arrays.fill(mRetired, 0, mRetiredCount, null);
+        mRetiredCount = 0;
+    }
+
+    /**
+     * Drops every entry, retired ones included, and empties the window.
+     */
+    void clear() {
+        for (int position = 0; position < mSpan; position++) {
+            mSlots[(mHead + position) & mMask] = null;
+        }
+        clearRetired();
+        mHead = 0;
+        mStartKey = 0;
+        mSpan = 0;
+        mModulus = 0;
+    }
+}
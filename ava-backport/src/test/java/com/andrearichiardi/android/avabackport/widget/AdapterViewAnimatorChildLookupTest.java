@@ -0,0 +1,64 @@
+package com.andrearichiardi.android.avabackport.widget;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+
+import android.view.View;
+
+@RunWith(RobolectricTestRunner.class)
+public class AdapterViewAnimatorChildLookupTest {
+
+    AdapterViewAnimator mAnimator;
+
+    @Before
+    public void setUp() {
+        mAnimator = new AdapterViewAnimator(Robolectric.application) {
+            @Override
+            void transformViewForTransition(int fromIndex, int toIndex, View view, boolean animate) {
+            }
+        };
+        mAnimator.configureViewAnimator(3, 1);
+    }
+
+    @Test
+    public void shouldFindTheEntryOfEveryChild() {
+        mAnimator.setAdapter(new CountingTestAdapter(10));
+        mAnimator.seekTo(5, false);
+        assertEveryChildFindsItsEntry();
+    }
+
+    @Test
+    public void shouldFindTheEntryOfUnwrappedChildren() {
+        mAnimator.setWrapAdapterViews(false);
+        mAnimator.setAdapter(new CountingTestAdapter(10));
+        mAnimator.seekTo(5, false);
+        assertEveryChildFindsItsEntry();
+    }
+
+    @Test
+    public void shouldNotFindChildrenThatLeftTheWindow() {
+        mAnimator.setAdapter(new CountingTestAdapter(10));
+        mAnimator.seekTo(5, false);
+        final View leaving = mAnimator.getViewAtRelativeIndex(0);
+
+        mAnimator.seekTo(6, false);
+
+        assertThat(mAnimator.indexOfChild(leaving)).isEqualTo(-1);
+        assertThat(mAnimator.getMetaDataForChild(leaving)).isNull();
+        assertEveryChildFindsItsEntry();
+    }
+
+    private void assertEveryChildFindsItsEntry() {
+        assertThat(mAnimator.getChildCount()).isEqualTo(3);
+        for (int relativeIndex = 0; relativeIndex < 3; relativeIndex++) {
+            final View child = mAnimator.getViewAtRelativeIndex(relativeIndex);
+            assertThat(mAnimator.getMetaDataForChild(child))
+                    .isSameAs(mAnimator.getMetaDataAtRelativeIndex(relativeIndex));
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.andrearichiardi.android.avabackport.widget;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+
+import android.view.View;
+
+@RunWith(RobolectricTestRunner.class)
+public class AdapterViewAnimatorCoalesceTest {
+
+    AdapterViewAnimator mAnimator;
+    CountingTestAdapter mAdapter;
+
+    @Before
+    public void setUp() {
+        // No animations, so that flushing only waits for the end of the frame
+        mAnimator = new AdapterViewAnimator(Robolectric.application) {
+            @Override
+            void transformViewForTransition(int fromIndex, int toIndex, View view, boolean animate) {
+            }
+        };
+        mAdapter = new CountingTestAdapter(10, false);
+        mAnimator.setAdapter(mAdapter);
+        mAnimator.setCoalesceFlips(true);
+        Robolectric.pauseMainLooper();
+    }
+
+    @Test
+    public void shouldShowEveryFlipByDefault() {
+        mAnimator.setCoalesceFlips(false);
+        final int getViewCount = mAdapter.mGetViewCount;
+        mAnimator.showNext();
+        mAnimator.showNext();
+        assertThat(mAnimator.getDisplayedChild()).isEqualTo(2);
+        assertThat(mAdapter.mGetViewCount).isEqualTo(getViewCount + 2);
+    }
+
+    @Test
+    public void shouldJumpToTheFinalTarget() {
+        final int getViewCount = mAdapter.mGetViewCount;
+        mAnimator.showNext();
+        mAnimator.showNext();
+        mAnimator.showNext();
+        assertThat(mAnimator.getDisplayedChild()).isEqualTo(0);
+
+        Robolectric.runUiThreadTasks();
+        assertThat(mAnimator.getDisplayedChild()).isEqualTo(3);
+        assertThat(mAdapter.mGetViewCount).isEqualTo(getViewCount + 1);
+        assertThat(mAdapter.mLastPosition).isEqualTo(3);
+    }
+
+    @Test
+    public void shouldCancelOutOppositeFlips() {
+        final int getViewCount = mAdapter.mGetViewCount;
+        mAnimator.showNext();
+        mAnimator.showPrevious();
+        Robolectric.runUiThreadTasks();
+        assertThat(mAnimator.getDisplayedChild()).isEqualTo(0);
+        assertThat(mAdapter.mGetViewCount).isEqualTo(getViewCount);
+    }
+
+    @Test
+    public void shouldWrapAroundBackward() {
+        mAnimator.showPrevious();
+        mAnimator.showPrevious();
+        Robolectric.runUiThreadTasks();
+        assertThat(mAnimator.getDisplayedChild()).isEqualTo(8);
+        assertThat(mAnimator.mFlipDirection).isEqualTo(-1);
+    }
+
+    @Test
+    public void shouldLetAnExplicitPositionWin() {
+        mAnimator.showNext();
+        mAnimator.setDisplayedChild(5);
+        Robolectric.runUiThreadTasks();
+        assertThat(mAnimator.getDisplayedChild()).isEqualTo(5);
+    }
+}
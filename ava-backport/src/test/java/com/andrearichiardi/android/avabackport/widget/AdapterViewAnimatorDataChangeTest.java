@@ -0,0 +1,80 @@
+package com.andrearichiardi.android.avabackport.widget;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+
+import android.view.View;
+
+@RunWith(RobolectricTestRunner.class)
+public class AdapterViewAnimatorDataChangeTest {
+
+    AdapterViewAnimator mAnimator;
+    CountingTestAdapter mAdapter;
+
+    @Before
+    public void setUp() {
+        mAnimator = new AdapterViewAnimator(Robolectric.application) {
+            @Override
+            void transformViewForTransition(int fromIndex, int toIndex, View view, boolean animate) {
+            }
+        };
+        mAnimator.configureViewAnimator(3, 1);
+        mAdapter = new CountingTestAdapter(10);
+        mAnimator.setAdapter(mAdapter);
+        Robolectric.pauseMainLooper();
+    }
+
+    private void measureAndLayout() {
+        final int spec = View.MeasureSpec.makeMeasureSpec(100, View.MeasureSpec.EXACTLY);
+        mAnimator.measure(spec, spec);
+        mAnimator.layout(0, 0, 100, 100);
+    }
+
+    @Test
+    public void shouldHandleABurstOfNotificationsInOnePass() {
+        final int childCount = mAnimator.getChildCount();
+        final int getViewCount = mAdapter.mGetViewCount;
+
+        mAdapter.notifyDataSetChanged();
+        mAdapter.notifyDataSetChanged();
+        mAdapter.notifyDataSetChanged();
+        measureAndLayout();
+        // Another layout before the pass runs does not post a second one
+        mAdapter.notifyDataSetChanged();
+        measureAndLayout();
+        assertThat(mAnimator.mDataChangedPending).isTrue();
+        assertThat(mAdapter.mGetViewCount).isEqualTo(getViewCount);
+
+        Robolectric.runUiThreadTasks();
+
+        // The window is bound again once
+        assertThat(mAdapter.mGetViewCount).isEqualTo(getViewCount + childCount);
+        assertThat(mAnimator.getCoalescedDataChangeCount()).isEqualTo(3);
+        assertThat(mAnimator.mDataChangedPending).isFalse();
+    }
+
+    @Test
+    public void shouldStartANewPassForANotificationAfterThePendingOneRan() {
+        final int childCount = mAnimator.getChildCount();
+        mAdapter.notifyDataSetChanged();
+        measureAndLayout();
+        Robolectric.runUiThreadTasks();
+        assertThat(mAnimator.mDataChangedPending).isFalse();
+        final int getViewCount = mAdapter.mGetViewCount;
+
+        mAdapter.notifyDataSetChanged();
+        measureAndLayout();
+        assertThat(mAnimator.mDataChangedPending).isTrue();
+        Robolectric.runUiThreadTasks();
+
+        assertThat(mAdapter.mGetViewCount).isEqualTo(getViewCount + childCount);
+        // Each notification had a pass of its own
+        assertThat(mAnimator.getCoalescedDataChangeCount()).isEqualTo(0);
+        assertThat(mAnimator.mDataChangedPending).isFalse();
+    }
+}
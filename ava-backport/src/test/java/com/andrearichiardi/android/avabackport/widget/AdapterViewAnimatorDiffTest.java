@@ -0,0 +1,133 @@
+package com.andrearichiardi.android.avabackport.widget;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.TextView;
+
+@RunWith(RobolectricTestRunner.class)
+public class AdapterViewAnimatorDiffTest {
+
+    /**
+     * Items are strings like "3:c", the key is the number before the colon. The diffs run
+     * when the test says so, the keys of the bound items are recorded.
+     */
+    static class KeyedAdapter extends DiffingAdapter<String> {
+        final List<Runnable> mPendingDiffs;
+        final List<Long> mBoundKeys = new ArrayList<Long>();
+
+        KeyedAdapter(final List<Runnable> pendingDiffs) {
+            super(new Executor() {
+                @Override
+                public void execute(Runnable command) {
+                    pendingDiffs.add(command);
+                }
+            });
+            mPendingDiffs = pendingDiffs;
+        }
+
+        @Override
+        protected long getItemKey(String item) {
+            return Long.parseLong(item.substring(0, item.indexOf(':')));
+        }
+
+        @Override
+        public View getView(int position, View convertView, ViewGroup parent) {
+            mBoundKeys.add(getItemId(position));
+            final TextView view = convertView != null ? (TextView) convertView
+                    : new TextView(parent.getContext());
+            view.setText(getItem(position));
+            return view;
+        }
+
+        void runPendingDiff(int index) {
+            mPendingDiffs.remove(index).run();
+        }
+    }
+
+    static final List<String> ITEMS = Arrays.asList("1:a", "2:b", "3:c", "4:d", "5:e", "6:f",
+            "7:g", "8:h", "9:i", "10:j");
+
+    AdapterViewAnimator mAnimator;
+    KeyedAdapter mAdapter;
+
+    @Before
+    public void setUp() {
+        mAnimator = new AdapterViewAnimator(Robolectric.application) {
+            @Override
+            void transformViewForTransition(int fromIndex, int toIndex, View view, boolean animate) {
+            }
+        };
+        mAnimator.configureViewAnimator(3, 1);
+        mAdapter = new KeyedAdapter(new ArrayList<Runnable>());
+        mAdapter.setItems(ITEMS);
+        mAdapter.runPendingDiff(0);
+        mAnimator.setAdapter(mAdapter);
+        // Keys 5, 6 and 7 in the window, 6 displayed
+        mAnimator.seekTo(5, false);
+        mAdapter.mBoundKeys.clear();
+        Robolectric.pauseMainLooper();
+    }
+
+    private String getTextAtRelativeIndex(int relativeIndex) {
+        final AdapterViewAnimator.ViewAndMetaData vm =
+                mAnimator.getMetaDataAtRelativeIndex(relativeIndex);
+        return ((TextView) vm.getAdapterView()).getText().toString();
+    }
+
+    @Test
+    public void shouldOnlyBindTheChangedAndTheNewItems() {
+        final View frameOf5 = mAnimator.getViewAtRelativeIndex(0);
+        final View frameOf6 = mAnimator.getCurrentView();
+
+        // 7 moves to the front, pushing 5 and 6 one position down, and 6 changes
+        mAdapter.setItems(Arrays.asList("7:g", "1:a", "2:b", "3:c", "4:d", "5:e", "6:x",
+                "8:h", "9:i", "10:j"));
+        mAdapter.runPendingDiff(0);
+        Robolectric.runUiThreadTasks();
+
+        assertThat(mAnimator.getDisplayedChild()).isEqualTo(6);
+        assertThat(mAnimator.getCurrentView()).isSameAs(frameOf6);
+        assertThat(getTextAtRelativeIndex(1)).isEqualTo("6:x");
+        // 5 moved along without being bound again
+        assertThat(mAnimator.getViewAtRelativeIndex(0)).isSameAs(frameOf5);
+        assertThat(getTextAtRelativeIndex(0)).isEqualTo("5:e");
+        // 6 changed and 8 entered the window, 7 left it
+        assertThat(mAdapter.mBoundKeys).containsOnly(6L, 8L);
+        assertThat(getTextAtRelativeIndex(2)).isEqualTo("8:h");
+        assertThat(mAnimator.mDataChangedPending).isFalse();
+    }
+
+    @Test
+    public void shouldOnlyPublishTheLatestItems() {
+        final View frameOf6 = mAnimator.getCurrentView();
+        mAdapter.setItems(Arrays.asList("6:f", "7:g"));
+        mAdapter.setItems(Arrays.asList("0:z", "1:a", "2:b", "3:c", "4:d", "5:e", "6:y",
+                "7:g", "8:h", "9:i", "10:j"));
+
+        // The latest diff completes first, the older one is ignored whenever it completes
+        mAdapter.runPendingDiff(1);
+        Robolectric.runUiThreadTasks();
+        mAdapter.runPendingDiff(0);
+        Robolectric.runUiThreadTasks();
+
+        assertThat(mAdapter.getCount()).isEqualTo(11);
+        assertThat(mAnimator.getCount()).isEqualTo(11);
+        assertThat(mAnimator.getDisplayedChild()).isEqualTo(6);
+        assertThat(mAnimator.getCurrentView()).isSameAs(frameOf6);
+        assertThat(getTextAtRelativeIndex(1)).isEqualTo("6:y");
+        assertThat(mAdapter.mBoundKeys).containsOnly(6L);
+    }
+}
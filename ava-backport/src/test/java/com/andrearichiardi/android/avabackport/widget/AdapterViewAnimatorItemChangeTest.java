@@ -0,0 +1,62 @@
+package com.andrearichiardi.android.avabackport.widget;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+
+import android.view.View;
+
+@RunWith(RobolectricTestRunner.class)
+public class AdapterViewAnimatorItemChangeTest {
+
+    AdapterViewAnimator mAnimator;
+    CountingTestAdapter mAdapter;
+
+    @Before
+    public void setUp() {
+        mAnimator = new AdapterViewAnimator(Robolectric.application) {
+            @Override
+            void transformViewForTransition(int fromIndex, int toIndex, View view, boolean animate) {
+            }
+        };
+        // Positions 0 and 1 in the window
+        mAnimator.configureViewAnimator(3, 1);
+        mAdapter = new CountingTestAdapter(10);
+        mAnimator.setAdapter(mAdapter);
+    }
+
+    @Test
+    public void shouldRebindAChangedItemInTheWindow() {
+        final int getViewCount = mAdapter.mGetViewCount;
+        final View view = mAnimator.mViewsMap.get(1).getAdapterView();
+
+        mAnimator.notifyItemChanged(1);
+
+        assertThat(mAdapter.mGetViewCount).isEqualTo(getViewCount + 1);
+        assertThat(mAdapter.mLastPosition).isEqualTo(1);
+        // Bound again as convertView
+        assertThat(mAnimator.mViewsMap.get(1).getAdapterView()).isSameAs(view);
+    }
+
+    @Test
+    public void shouldIgnoreItemsOutsideTheWindow() {
+        final int getViewCount = mAdapter.mGetViewCount;
+
+        mAnimator.notifyItemRangeChanged(2, 5);
+
+        assertThat(mAdapter.mGetViewCount).isEqualTo(getViewCount);
+    }
+
+    @Test
+    public void shouldRebindTheWholeWindowForAnUnboundedRange() {
+        final int getViewCount = mAdapter.mGetViewCount;
+
+        mAnimator.notifyItemRangeChanged(0, Integer.MAX_VALUE);
+
+        assertThat(mAdapter.mGetViewCount).isEqualTo(getViewCount + 2);
+    }
+}
@@ -0,0 +1,90 @@
+package com.andrearichiardi.android.avabackport.widget;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+
+import android.view.View;
+import android.widget.ArrayAdapter;
+
+@RunWith(RobolectricTestRunner.class)
+public class AdapterViewAnimatorMaterializationTest {
+
+    static final int WINDOW = 5;
+    static final int ACTIVE_OFFSET = 2;
+
+    AdapterViewAnimator mAnimator;
+    ArrayAdapter<String> mAdapter;
+
+    @Before
+    public void setUp() {
+        mAnimator = new AdapterViewAnimator(Robolectric.application) {
+        };
+        mAnimator.configureViewAnimator(WINDOW, ACTIVE_OFFSET);
+        mAdapter = new ArrayAdapter<String>(Robolectric.application, android.R.layout.simple_list_item_1,
+                new String[] { "0", "1", "2", "3", "4", "5", "6", "7", "8", "9" });
+        Robolectric.pauseMainLooper();
+    }
+
+    @Test
+    public void shouldMaterializeTheWholeWindowAtOnceByDefault() {
+        mAnimator.setAdapter(mAdapter);
+        assertThat(mAnimator.getChildCount()).isEqualTo(WINDOW);
+    }
+
+    @Test
+    public void shouldAttachTheCurrentChildFirst() {
+        mAnimator.setMaterializationBudget(4);
+        mAnimator.setAdapter(mAdapter);
+        assertThat(mAnimator.getChildCount()).isEqualTo(1);
+        assertThat(mAnimator.getCurrentView()).isNotNull();
+
+        Robolectric.runUiThreadTasks();
+        assertThat(mAnimator.getChildCount()).isEqualTo(WINDOW);
+    }
+
+    @Test
+    public void shouldKeepTheChildrenInWindowOrder() {
+        mAnimator.setMaterializationBudget(4);
+        mAnimator.setAdapter(mAdapter);
+        Robolectric.runUiThreadTasks();
+
+        for (int i = 0; i < WINDOW; i++) {
+            assertThat(mAnimator.getChildAt(i))
+                    .isSameAs(mAnimator.getViewAtRelativeIndex(i));
+        }
+    }
+
+    @Test
+    public void shouldMoveTheWindowAboveTheOtherChildrenWhenFlippingBack() {
+        mAnimator.setAdapter(mAdapter);
+        mAnimator.seekTo(5, false);
+        final View retired = mAnimator.getViewAtRelativeIndex(WINDOW - 1);
+
+        mAnimator.showPrevious();
+
+        // The child leaving the window stays below it until it is removed
+        final int count = mAnimator.getChildCount();
+        assertThat(mAnimator.getChildAt(count - WINDOW - 1)).isSameAs(retired);
+        for (int i = 0; i < WINDOW; i++) {
+            assertThat(mAnimator.getChildAt(count - WINDOW + i))
+                    .isSameAs(mAnimator.getViewAtRelativeIndex(i));
+        }
+    }
+
+    @Test
+    public void shouldMaterializeAfterAFlip() {
+        mAnimator.setMaterializationBudget(4);
+        mAnimator.setAdapter(mAdapter);
+        Robolectric.runUiThreadTasks();
+
+        mAnimator.showNext();
+        assertThat(mAnimator.getViewAtRelativeIndex(WINDOW - 1)).isNull();
+        Robolectric.runUiThreadTasks();
+        assertThat(mAnimator.getViewAtRelativeIndex(WINDOW - 1)).isNotNull();
+    }
+}
@@ -0,0 +1,93 @@
+package com.andrearichiardi.android.avabackport.widget;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+
+import android.view.View;
+
+import com.nineoldandroids.view.ViewHelper;
+
+@RunWith(RobolectricTestRunner.class)
+public class AdapterViewAnimatorMoveTest {
+
+    AdapterViewAnimator mAnimator;
+
+    @Before
+    public void setUp() {
+        // A carousel: each place of the window is 100 pixels to the right of the previous one
+        mAnimator = new AdapterViewAnimator(Robolectric.application) {
+            @Override
+            void applyTransformForChildAtIndex(View child, int relativeIndex) {
+                ViewHelper.setTranslationX(child, relativeIndex * 100.0f);
+            }
+
+            @Override
+            void transformViewForTransition(int fromIndex, int toIndex, View view, boolean animate) {
+            }
+        };
+        mAnimator.configureViewAnimator(3, 1);
+        mAnimator.setAdapter(new CountingTestAdapter(10, false));
+    }
+
+    @Test
+    public void shouldJumpByDefault() {
+        final View next = mAnimator.mViewsMap.get(1).view;
+        mAnimator.showNext();
+        assertThat(ViewHelper.getTranslationX(next)).isEqualTo(100.0f);
+        assertThat(mAnimator.mMoves.getCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void shouldMoveTheChildrenStayingInTheWindow() {
+        mAnimator.setAnimateMoves(true);
+        final View current = mAnimator.mViewsMap.get(0).view;
+        final View next = mAnimator.mViewsMap.get(1).view;
+
+        mAnimator.showNext();
+
+        // Both start from their old place, on a single animator
+        assertThat(mAnimator.mMoves.getCount()).isEqualTo(2);
+        assertThat(mAnimator.isTransitionRunning()).isTrue();
+        assertThat(ViewHelper.getTranslationX(current)).isEqualTo(100.0f);
+        assertThat(ViewHelper.getTranslationX(next)).isEqualTo(200.0f);
+
+        mAnimator.mMoves.end();
+        assertThat(ViewHelper.getTranslationX(current)).isEqualTo(0.0f);
+        assertThat(ViewHelper.getTranslationX(next)).isEqualTo(100.0f);
+    }
+
+    @Test
+    public void shouldMoveMoreChildrenThanItsInitialCapacity() {
+        final WindowMoveAnimator moves = new WindowMoveAnimator(100);
+        final View[] views = new View[6];
+        for (int i = 0; i < views.length; i++) {
+            views[i] = new View(Robolectric.application);
+            moves.captureStart(views[i]);
+            ViewHelper.setTranslationX(views[i], i * 100.0f);
+            moves.captureEnd(views[i]);
+        }
+        // The first one does not move
+        assertThat(moves.getCount()).isEqualTo(views.length - 1);
+
+        moves.end();
+        for (int i = 0; i < views.length; i++) {
+            assertThat(ViewHelper.getTranslationX(views[i])).isEqualTo(i * 100.0f);
+        }
+    }
+
+    @Test
+    public void shouldLandWhenNotAnimating() {
+        mAnimator.setAnimateMoves(true);
+        final View next = mAnimator.mViewsMap.get(1).view;
+        mAnimator.showNext();
+        mAnimator.seekTo(2, false);
+
+        assertThat(mAnimator.mMoves.getCount()).isEqualTo(0);
+        assertThat(ViewHelper.getTranslationX(next)).isEqualTo(0.0f);
+    }
+}
@@ -0,0 +1,104 @@
+package com.andrearichiardi.android.avabackport.widget;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+
+import android.content.Context;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.TextView;
+
+import com.nineoldandroids.view.ViewHelper;
+
+@RunWith(RobolectricTestRunner.class)
+public class AdapterViewAnimatorOcclusionTest {
+
+    static class OpaqueView extends TextView {
+        OpaqueView(Context context) {
+            super(context);
+        }
+
+        @Override
+        public boolean isOpaque() {
+            return true;
+        }
+    }
+
+    AdapterViewAnimator mAnimator;
+
+    @Before
+    public void setUp() {
+        // A stack: every child of the window on top of the other
+        mAnimator = new AdapterViewAnimator(Robolectric.application) {
+            @Override
+            void transformViewForTransition(int fromIndex, int toIndex, View view, boolean animate) {
+            }
+        };
+        mAnimator.configureViewAnimator(3, 1);
+        mAnimator.setAdapter(new CountingTestAdapter(10) {
+            @Override
+            View newView(Context context) {
+                return new OpaqueView(context);
+            }
+        });
+        layout();
+    }
+
+    private void layout() {
+        for (int i = 0; i < mAnimator.getChildCount(); i++) {
+            final ViewGroup frame = (ViewGroup) mAnimator.getChildAt(i);
+            frame.layout(0, 0, 100, 100);
+            frame.getChildAt(0).layout(0, 0, 100, 100);
+        }
+    }
+
+    @Test
+    public void shouldOccludeTheChildrenBehindTheTopOne() {
+        mAnimator.computeOcclusion();
+
+        final int last = mAnimator.getChildCount() - 1;
+        assertThat(mAnimator.mOcclusion.getOccludedCount()).isEqualTo(last);
+        final ChildOcclusion occlusion = mAnimator.mOcclusion;
+        assertThat(occlusion.isOccluded(mAnimator.getChildAt(last))).isFalse();
+        for (int i = 0; i < last; i++) {
+            assertThat(occlusion.isOccluded(mAnimator.getChildAt(i))).isTrue();
+        }
+    }
+
+    @Test
+    public void shouldNotOccludeBehindATransformedChild() {
+        final int last = mAnimator.getChildCount() - 1;
+        ViewHelper.setAlpha(mAnimator.getChildAt(last), 0.5f);
+        ViewHelper.setTranslationX(mAnimator.getChildAt(last - 1), 10.0f);
+
+        mAnimator.computeOcclusion();
+
+        // Neither the translucent nor the moved child hide the ones behind
+        assertThat(mAnimator.mOcclusion.getOccludedCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void shouldNotOccludeWhatIsNotCovered() {
+        final ViewGroup bottom = (ViewGroup) mAnimator.getChildAt(0);
+        bottom.layout(0, 0, 200, 100);
+
+        mAnimator.computeOcclusion();
+
+        assertThat(mAnimator.mOcclusion.isOccluded(bottom)).isFalse();
+    }
+
+    @Test
+    public void shouldNotOccludeBehindATransparentChild() {
+        mAnimator.setAdapter(new CountingTestAdapter(10));
+        layout();
+
+        mAnimator.computeOcclusion();
+
+        assertThat(mAnimator.mOcclusion.getOccludedCount()).isEqualTo(0);
+    }
+}
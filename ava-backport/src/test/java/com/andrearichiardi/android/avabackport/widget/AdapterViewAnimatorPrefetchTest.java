@@ -0,0 +1,83 @@
+package com.andrearichiardi.android.avabackport.widget;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+
+import android.view.View;
+
+@RunWith(RobolectricTestRunner.class)
+public class AdapterViewAnimatorPrefetchTest {
+
+    AdapterViewFlipper mFlipper;
+    CountingTestAdapter mAdapter;
+
+    @Before
+    public void setUp() {
+        mFlipper = new AdapterViewFlipper(Robolectric.application);
+        mAdapter = new CountingTestAdapter(5);
+    }
+
+    private void runIdle() {
+        while (mFlipper.mPrefetcher.queueIdle()) {
+            // one item per idle pass
+        }
+    }
+
+    @Test
+    public void shouldNotPrefetchByDefault() {
+        mFlipper.setAdapter(mAdapter);
+        runIdle();
+        assertThat(mFlipper.getPrefetchedCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void shouldPrefetchTheNextItems() {
+        mFlipper.setOffscreenPageLimit(2);
+        mFlipper.setAdapter(mAdapter);
+        runIdle();
+        assertThat(mFlipper.getPrefetchedCount()).isEqualTo(2);
+        assertThat(mFlipper.mPrefetched.get(0).adapterPosition).isEqualTo(1);
+        assertThat(mFlipper.mPrefetched.get(1).adapterPosition).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldPrefetchThePreviousItemsToo() {
+        mFlipper.setOffscreenPageLimit(1, true);
+        mFlipper.setAdapter(mAdapter);
+        runIdle();
+        assertThat(mFlipper.getPrefetchedCount()).isEqualTo(2);
+        assertThat(mFlipper.takePrefetched(4)).isNotNull();
+    }
+
+    @Test
+    public void shouldAttachThePrefetchedViewOnFlip() {
+        mFlipper.setOffscreenPageLimit(1);
+        mFlipper.setAdapter(mAdapter);
+        runIdle();
+        final View prefetched = mFlipper.mPrefetched.get(0).view;
+        final int getViewCount = mAdapter.mGetViewCount;
+
+        mFlipper.showNext();
+        assertThat(mAdapter.mGetViewCount).isEqualTo(getViewCount);
+        assertThat(mFlipper.getCurrentView()).isSameAs(prefetched);
+        assertThat(mFlipper.getPrefetchedCount()).isEqualTo(0);
+
+        runIdle();
+        assertThat(mFlipper.getPrefetchedCount()).isEqualTo(1);
+        assertThat(mFlipper.mPrefetched.get(0).adapterPosition).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldDropThePrefetchedViewsWhenTheDataChanges() {
+        mFlipper.setOffscreenPageLimit(1);
+        mFlipper.setAdapter(mAdapter);
+        runIdle();
+        mFlipper.notifyItemChanged(1);
+        assertThat(mFlipper.getPrefetchedCount()).isEqualTo(0);
+    }
+}
@@ -0,0 +1,109 @@
+package com.andrearichiardi.android.avabackport.widget;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+
+/**
+ * Checks that, once its pools are warm, flipping reuses the frames, the window entries and the
+ * adapter views the animator already has instead of making new ones.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class AdapterViewAnimatorReuseTest {
+
+    static final int WARM_UP_FLIPS = 4;
+    static final int STEADY_FLIPS = 50;
+
+    AdapterViewFlipper mFlipper;
+    CountingTestAdapter mAdapter;
+
+    /**
+     * Every child and window entry seen so far, compared by identity
+     */
+    final ArrayList<Object> mSeen = new ArrayList<Object>();
+
+    @Before
+    public void setUp() {
+        mFlipper = new AdapterViewFlipper(Robolectric.application);
+        mAdapter = new CountingTestAdapter(5);
+        mFlipper.setAdapter(mAdapter);
+    }
+
+    private void flip(boolean next) {
+        if (next) {
+            mFlipper.showNext();
+        } else {
+            mFlipper.showPrevious();
+        }
+    }
+
+    private void warmUp() {
+        for (int i = 0; i < WARM_UP_FLIPS; i++) {
+            flip(true);
+            collectUnseen(mSeen);
+        }
+    }
+
+    /**
+     * Adds to <code>unseen</code> the children and window entries not in {@link #mSeen}.
+     */
+    private void collectUnseen(ArrayList<Object> unseen) {
+        for (int i = 0; i < mFlipper.getChildCount(); i++) {
+            addIfUnseen(unseen, mFlipper.getChildAt(i));
+        }
+        for (int i = 0; i < mFlipper.mViewsMap.getSpan(); i++) {
+            final Object vm = mFlipper.mViewsMap.getAt(i);
+            if (vm != null) {
+                addIfUnseen(unseen, vm);
+            }
+        }
+    }
+
+    private void addIfUnseen(ArrayList<Object> unseen, Object object) {
+        for (int i = 0; i < mSeen.size(); i++) {
+            if (mSeen.get(i) == object) {
+                return;
+            }
+        }
+        unseen.add(object);
+    }
+
+    @Test
+    public void shouldReuseTheFramesAndEntriesOnSteadyStateFlips() {
+        warmUp();
+        final ArrayList<Object> unseen = new ArrayList<Object>();
+
+        for (int i = 0; i < STEADY_FLIPS; i++) {
+            flip(true);
+            collectUnseen(unseen);
+        }
+        for (int i = 0; i < STEADY_FLIPS; i++) {
+            flip(false);
+            collectUnseen(unseen);
+        }
+
+        assertThat(unseen).isEmpty();
+    }
+
+    @Test
+    public void shouldNotCreateAdapterViewsOnSteadyStateFlips() {
+        warmUp();
+        final int views = mAdapter.mCreatedCount;
+
+        for (int i = 0; i < STEADY_FLIPS; i++) {
+            flip(true);
+        }
+        for (int i = 0; i < STEADY_FLIPS; i++) {
+            flip(false);
+        }
+
+        assertThat(mAdapter.mCreatedCount).isEqualTo(views);
+        assertThat(mFlipper.getDisplayedChild()).isEqualTo(WARM_UP_FLIPS % mAdapter.getCount());
+    }
+}
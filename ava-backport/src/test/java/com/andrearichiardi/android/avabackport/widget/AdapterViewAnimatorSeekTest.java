@@ -0,0 +1,97 @@
+package com.andrearichiardi.android.avabackport.widget;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+
+import android.view.View;
+
+@RunWith(RobolectricTestRunner.class)
+public class AdapterViewAnimatorSeekTest {
+
+    AdapterViewAnimator mAnimator;
+
+    @Before
+    public void setUp() {
+        mAnimator = new AdapterViewAnimator(Robolectric.application) {
+            @Override
+            void transformViewForTransition(int fromIndex, int toIndex, View view, boolean animate) {
+            }
+        };
+    }
+
+    @Test
+    public void shouldSeekWithoutMaterializingTheWayThere() {
+        final CountingTestAdapter adapter = new CountingTestAdapter(1000);
+        mAnimator.setAdapter(adapter);
+        final int getViewCount = adapter.mGetViewCount;
+
+        mAnimator.seekTo(500, false);
+
+        assertThat(mAnimator.getDisplayedChild()).isEqualTo(500);
+        assertThat(adapter.mGetViewCount).isEqualTo(getViewCount + 1);
+        assertThat(adapter.mLastPosition).isEqualTo(500);
+        assertThat(mAnimator.getChildCount()).isEqualTo(1);
+        assertThat(mAnimator.mViewsMap.getRetiredCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void shouldWrapOrClampTheSeekPosition() {
+        mAnimator.setAdapter(new CountingTestAdapter(10));
+
+        mAnimator.seekTo(-1, false);
+        assertThat(mAnimator.getDisplayedChild()).isEqualTo(9);
+
+        mAnimator.mLoopViews = false;
+        mAnimator.seekTo(42, false);
+        assertThat(mAnimator.getDisplayedChild()).isEqualTo(9);
+        mAnimator.seekTo(-3, false);
+        assertThat(mAnimator.getDisplayedChild()).isEqualTo(0);
+    }
+
+    @Test
+    public void shouldLoopAroundHugeAdapters() {
+        final int count = Integer.MAX_VALUE - 1;
+        final CountingTestAdapter adapter = new CountingTestAdapter(count);
+        mAnimator.configureViewAnimator(3, 1);
+        mAnimator.setAdapter(adapter);
+
+        mAnimator.seekTo(count - 1, false);
+        assertThat(mAnimator.getDisplayedChild()).isEqualTo(count - 1);
+        assertThat(mAnimator.getChildCount()).isEqualTo(3);
+
+        mAnimator.showNext();
+        assertThat(mAnimator.getDisplayedChild()).isEqualTo(0);
+        assertThat(mAnimator.getCurrentView()).isNotNull();
+        assertThat(mAnimator.getMetaDataAtRelativeIndex(1).adapterPosition).isEqualTo(0);
+    }
+
+    @Test
+    public void shouldKeepAWindowEndingAtIntegerMaxValue() {
+        final int count = Integer.MAX_VALUE - 1;
+        final CountingTestAdapter adapter = new CountingTestAdapter(count);
+        mAnimator.configureViewAnimator(3, 0);
+        mAnimator.setAdapter(adapter);
+
+        // The window covers count - 1 up to exactly Integer.MAX_VALUE
+        mAnimator.seekTo(count - 1, false);
+        assertThat(mAnimator.mCurrentWindowStartUnbounded).isEqualTo(count - 1);
+        assertThat(mAnimator.mCurrentWindowEnd).isEqualTo(Integer.MAX_VALUE);
+        assertThat(mAnimator.getDisplayedChild()).isEqualTo(count - 1);
+        assertThat(mAnimator.getChildCount()).isEqualTo(3);
+        assertThat(mAnimator.getMetaDataAtRelativeIndex(2).adapterPosition).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldComputeModuloWithoutOverflow() {
+        final int size = Integer.MAX_VALUE - 1;
+        assertThat(mAnimator.modulo(size, size)).isEqualTo(0);
+        assertThat(mAnimator.modulo(-1, size)).isEqualTo(size - 1);
+        assertThat(mAnimator.modulo((long) Integer.MAX_VALUE + 5, size)).isEqualTo(6);
+        assertThat(mAnimator.modulo(7, 0)).isEqualTo(0);
+    }
+}
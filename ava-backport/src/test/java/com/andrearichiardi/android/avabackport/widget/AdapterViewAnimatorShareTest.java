@@ -0,0 +1,194 @@
+package com.andrearichiardi.android.avabackport.widget;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.robolectric.Robolectric.shadowOf;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+
+import android.graphics.Rect;
+import android.view.View;
+
+@RunWith(RobolectricTestRunner.class)
+public class AdapterViewAnimatorShareTest {
+
+    AdapterViewAnimator mAnimator;
+    CountingTestAdapter mAdapter;
+
+    @Before
+    public void setUp() {
+        mAnimator = new AdapterViewAnimator(Robolectric.application) {
+            @Override
+            void transformViewForTransition(int fromIndex, int toIndex, View view, boolean animate) {
+            }
+        };
+        mAnimator.configureViewAnimator(5, 2);
+        mAdapter = new CountingTestAdapter(3);
+    }
+
+    @Test
+    public void shouldBindEveryIndexByDefault() {
+        mAnimator.setAdapter(mAdapter);
+        assertThat(mAnimator.getChildCount()).isEqualTo(5);
+        assertThat(mAdapter.mGetViewCount).isEqualTo(5);
+        assertThat(mAnimator.getMirrorCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void shouldBindEachItemOnce() {
+        mAnimator.setShareDuplicateViews(true);
+        mAnimator.setAdapter(mAdapter);
+        assertThat(mAnimator.getChildCount()).isEqualTo(5);
+        assertThat(mAdapter.mGetViewCount).isEqualTo(3);
+        assertThat(mAnimator.getMirrorCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldKeepSharingWhileFlipping() {
+        mAnimator.setShareDuplicateViews(true);
+        mAnimator.setAdapter(mAdapter);
+
+        for (int i = 0; i < 7; i++) {
+            mAnimator.showNext();
+        }
+        for (int i = 0; i < 4; i++) {
+            mAnimator.showPrevious();
+        }
+        mAnimator.removePreviousViews();
+
+        assertThat(mAdapter.mGetViewCount).isEqualTo(3);
+        assertThat(mAnimator.getChildCount()).isEqualTo(5);
+        assertThat(mAnimator.getMirrorCount()).isEqualTo(2);
+        // Every item still has its own adapter view in the window
+        for (int position = 0; position < 3; position++) {
+            assertThat(mAnimator.findMirrorSource(position)).isNotNull();
+        }
+        final View current = mAnimator.getCurrentView();
+        assertThat(current).isNotNull();
+    }
+
+    /**
+     * @return The number of mirrors registered with the frames of the adapter views.
+     */
+    private int getRegisteredMirrorCount() {
+        int count = 0;
+        for (int position = 0; position < mAdapter.getCount(); position++) {
+            final AdapterViewAnimator.ViewAndMetaData source = mAnimator.findMirrorSource(position);
+            count += ((TransitionFrame) source.view).getMirrorCount();
+        }
+        return count;
+    }
+
+    @Test
+    public void shouldRegisterTheMirrorsWithTheFrameOfTheirSource() {
+        mAnimator.setShareDuplicateViews(true);
+        mAnimator.setAdapter(mAdapter);
+        assertThat(getRegisteredMirrorCount()).isEqualTo(2);
+
+        for (int i = 0; i < 7; i++) {
+            mAnimator.showNext();
+            mAnimator.removePreviousViews();
+        }
+        for (int i = 0; i < 4; i++) {
+            mAnimator.showPrevious();
+            mAnimator.removePreviousViews();
+        }
+
+        // The adapter views moved between frames, their mirrors followed them
+        assertThat(getRegisteredMirrorCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldRedrawTheMirrorsWhenTheirSourceIsInvalidated() {
+        mAnimator.setShareDuplicateViews(true);
+        mAnimator.setAdapter(mAdapter);
+        final AdapterViewAnimator.ViewAndMetaData source = mAnimator.findMirrorSource(0);
+        final TransitionFrame frame = (TransitionFrame) source.view;
+        assertThat(frame.getMirrorCount()).isEqualTo(1);
+
+        View mirror = null;
+        View other = null;
+        for (int i = 0; i < 5; i++) {
+            final AdapterViewAnimator.ViewAndMetaData vm = mAnimator.getMetaDataAtRelativeIndex(i);
+            if (vm.mirrored) {
+                if (vm.adapterPosition == 0) {
+                    mirror = vm.getAdapterView();
+                } else {
+                    other = vm.getAdapterView();
+                }
+            }
+        }
+        shadowOf(mirror).clearWasInvalidated();
+        shadowOf(other).clearWasInvalidated();
+
+        frame.invalidateChildInParent(new int[2], new Rect(0, 0, 10, 10));
+
+        assertThat(shadowOf(mirror).wasInvalidated()).isTrue();
+        // Only the mirrors of the invalidated view are redrawn
+        assertThat(shadowOf(other).wasInvalidated()).isFalse();
+    }
+
+    private View findMirror(int position) {
+        for (int i = 0; i < 5; i++) {
+            final AdapterViewAnimator.ViewAndMetaData vm = mAnimator.getMetaDataAtRelativeIndex(i);
+            if (vm.mirrored && vm.adapterPosition == position) {
+                return vm.getAdapterView();
+            }
+        }
+        return null;
+    }
+
+    private void measureAndLayout() {
+        final int spec = View.MeasureSpec.makeMeasureSpec(100, View.MeasureSpec.EXACTLY);
+        mAnimator.measure(spec, spec);
+        mAnimator.layout(0, 0, 100, 100);
+    }
+
+    @Test
+    public void shouldMeasureTheMirrorsAgainOnlyWhenTheirSourceAsksForIt() {
+        mAnimator.setShareDuplicateViews(true);
+        mAnimator.setAdapter(mAdapter);
+        measureAndLayout();
+        final View source = mAnimator.findMirrorSource(0).getAdapterView();
+        final View mirror = findMirror(0);
+        assertThat(mirror.getMeasuredWidth()).isEqualTo(source.getMeasuredWidth());
+        assertThat(mirror.getMeasuredHeight()).isEqualTo(source.getMeasuredHeight());
+
+        // A layout pass nobody asked for leaves the mirrors alone
+        mAnimator.requestLayout();
+        final int spec = View.MeasureSpec.makeMeasureSpec(100, View.MeasureSpec.EXACTLY);
+        mAnimator.measure(spec, spec);
+        assertThat(mirror.isLayoutRequested()).isFalse();
+        mAnimator.layout(0, 0, 100, 100);
+
+        source.requestLayout();
+        mAnimator.measure(spec, spec);
+        assertThat(mirror.isLayoutRequested()).isTrue();
+        mAnimator.layout(0, 0, 100, 100);
+        assertThat(mirror.getMeasuredWidth()).isEqualTo(source.getMeasuredWidth());
+        assertThat(mirror.getMeasuredHeight()).isEqualTo(source.getMeasuredHeight());
+    }
+
+    @Test
+    public void shouldUnregisterTheMirrorsWhenSharingStops() {
+        mAnimator.setShareDuplicateViews(true);
+        mAnimator.setAdapter(mAdapter);
+        final TransitionFrame frame = (TransitionFrame) mAnimator.findMirrorSource(0).view;
+
+        mAnimator.setShareDuplicateViews(false);
+
+        assertThat(frame.getMirrorCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void shouldNotShareWhenTheAdapterFillsTheWindow() {
+        mAnimator.configureViewAnimator(2, 0);
+        mAnimator.setShareDuplicateViews(true);
+        mAnimator.setAdapter(mAdapter);
+        assertThat(mAnimator.canShareDuplicateViews()).isFalse();
+        assertThat(mAnimator.getMirrorCount()).isEqualTo(0);
+    }
+}
@@ -0,0 +1,109 @@
+package com.andrearichiardi.android.avabackport.widget;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+
+@RunWith(RobolectricTestRunner.class)
+public class AdapterViewAnimatorSnapshotTest {
+
+    AdapterViewAnimator mAnimator;
+    Canvas mCanvas;
+
+    @Before
+    public void setUp() {
+        mAnimator = new AdapterViewFlipper(Robolectric.application);
+        mAnimator.setAdapter(new CountingTestAdapter(5, false));
+        mCanvas = new Canvas(Bitmap.createBitmap(100, 100, Bitmap.Config.ARGB_8888));
+    }
+
+    private static void draw(TransitionFrame frame, Canvas canvas) {
+        frame.layout(0, 0, 100, 100);
+        frame.dispatchDraw(canvas);
+    }
+
+    @Test
+    public void shouldWrapInTransitionFrames() {
+        assertThat(mAnimator.mViewsMap.get(0).view).isInstanceOf(TransitionFrame.class);
+    }
+
+    @Test
+    public void shouldNotSnapshotByDefault() {
+        mAnimator.showNext();
+        final TransitionFrame frame = (TransitionFrame) mAnimator.mViewsMap.get(1).view;
+        draw(frame, mCanvas);
+        assertThat(frame.hasSnapshot()).isFalse();
+    }
+
+    @Test
+    public void shouldSnapshotOnTheFirstFrameOfTheTransition() {
+        mAnimator.setSnapshotTransitions(true);
+        mAnimator.showNext();
+        final TransitionFrame frame = (TransitionFrame) mAnimator.mViewsMap.get(1).view;
+        // Not drawn yet
+        assertThat(frame.hasSnapshot()).isFalse();
+
+        draw(frame, mCanvas);
+        assertThat(frame.hasSnapshot()).isTrue();
+    }
+
+    @Test
+    public void shouldGiveTheBitmapBackWhenTheTransitionEnds() {
+        mAnimator.setSnapshotTransitions(true);
+        mAnimator.showNext();
+        final TransitionFrame frame = (TransitionFrame) mAnimator.mViewsMap.get(1).view;
+        draw(frame, mCanvas);
+
+        mAnimator.mAnimators.endAll();
+
+        assertThat(frame.hasSnapshot()).isFalse();
+        assertThat(mAnimator.mSnapshotPool.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldReuseTheBitmapsOfPreviousTransitions() {
+        final SnapshotBitmapPool pool = new SnapshotBitmapPool();
+        final TransitionFrame frame = new TransitionFrame(Robolectric.application);
+        frame.requestSnapshot(pool);
+        draw(frame, mCanvas);
+        frame.clearSnapshot();
+        assertThat(pool.size()).isEqualTo(1);
+
+        frame.requestSnapshot(pool);
+        draw(frame, mCanvas);
+        assertThat(frame.hasSnapshot()).isTrue();
+        assertThat(pool.size()).isEqualTo(0);
+    }
+
+    @Test
+    public void shouldWaitForTheLayoutToSnapshot() {
+        final SnapshotBitmapPool pool = new SnapshotBitmapPool();
+        final TransitionFrame frame = new TransitionFrame(Robolectric.application);
+        frame.requestSnapshot(pool);
+        frame.dispatchDraw(mCanvas);
+        assertThat(frame.hasSnapshot()).isFalse();
+
+        draw(frame, mCanvas);
+        assertThat(frame.hasSnapshot()).isTrue();
+    }
+
+    @Test
+    public void shouldDrawLiveWhenDisabled() {
+        mAnimator.setSnapshotTransitions(true);
+        mAnimator.showNext();
+        final TransitionFrame frame = (TransitionFrame) mAnimator.mViewsMap.get(1).view;
+        draw(frame, mCanvas);
+
+        mAnimator.setSnapshotTransitions(false);
+
+        assertThat(frame.hasSnapshot()).isFalse();
+        assertThat(mAnimator.mSnapshotPool.size()).isEqualTo(0);
+    }
+}
@@ -0,0 +1,122 @@
+package com.andrearichiardi.android.avabackport.widget;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.BaseAdapter;
+import android.widget.TextView;
+
+@RunWith(RobolectricTestRunner.class)
+public class AdapterViewAnimatorStableIdTest {
+
+    /**
+     * An adapter of item ids that can be inserted and removed, its views show their id.
+     */
+    static class IdListAdapter extends BaseAdapter {
+        final List<Long> mIds = new ArrayList<Long>();
+        int mGetViewCount;
+
+        IdListAdapter(int count) {
+            for (long id = 0; id < count; id++) {
+                mIds.add(id);
+            }
+        }
+
+        @Override
+        public boolean hasStableIds() {
+            return true;
+        }
+
+        @Override
+        public int getCount() {
+            return mIds.size();
+        }
+
+        @Override
+        public Object getItem(int position) {
+            return mIds.get(position);
+        }
+
+        @Override
+        public long getItemId(int position) {
+            return mIds.get(position);
+        }
+
+        @Override
+        public View getView(int position, View convertView, ViewGroup parent) {
+            mGetViewCount++;
+            final TextView view = convertView != null ? (TextView) convertView
+                    : new TextView(parent.getContext());
+            view.setText(String.valueOf(mIds.get(position)));
+            return view;
+        }
+    }
+
+    AdapterViewAnimator mAnimator;
+    IdListAdapter mAdapter;
+
+    @Before
+    public void setUp() {
+        mAnimator = new AdapterViewAnimator(Robolectric.application) {
+            @Override
+            void transformViewForTransition(int fromIndex, int toIndex, View view, boolean animate) {
+            }
+        };
+        mAnimator.configureViewAnimator(3, 1);
+        mAdapter = new IdListAdapter(10);
+        mAnimator.setAdapter(mAdapter);
+        mAnimator.seekTo(5, false);
+        Robolectric.pauseMainLooper();
+    }
+
+    private void handleDataChange() {
+        mAdapter.notifyDataSetChanged();
+        final int spec = View.MeasureSpec.makeMeasureSpec(100, View.MeasureSpec.EXACTLY);
+        mAnimator.measure(spec, spec);
+        mAnimator.layout(0, 0, 100, 100);
+        Robolectric.runUiThreadTasks();
+    }
+
+    @Test
+    public void shouldKeepTheDisplayedItemWhenItemsAreInsertedBeforeIt() {
+        final View previous = mAnimator.getViewAtRelativeIndex(0);
+        final View current = mAnimator.getCurrentView();
+        final View next = mAnimator.getViewAtRelativeIndex(2);
+
+        mAdapter.mIds.add(0, 100L);
+        handleDataChange();
+
+        assertThat(mAnimator.getDisplayedChild()).isEqualTo(6);
+        assertThat(mAnimator.getMetaDataAtRelativeIndex(1).itemId).isEqualTo(5L);
+        // The items stayed in the window, so did their frames
+        assertThat(mAnimator.getCurrentView()).isSameAs(current);
+        assertThat(mAnimator.getViewAtRelativeIndex(0)).isSameAs(previous);
+        assertThat(mAnimator.getViewAtRelativeIndex(2)).isSameAs(next);
+        assertThat(mAnimator.getChildCount()).isEqualTo(3);
+    }
+
+    @Test
+    public void shouldRefreshTheWindowWhenTheDisplayedItemIsRemoved() {
+        final int getViewCount = mAdapter.mGetViewCount;
+
+        mAdapter.mIds.remove(5);
+        handleDataChange();
+
+        // Nothing to anchor to, the position stays and the whole window is bound again
+        assertThat(mAnimator.getDisplayedChild()).isEqualTo(5);
+        final AdapterViewAnimator.ViewAndMetaData vm = mAnimator.getMetaDataAtRelativeIndex(1);
+        assertThat(vm.itemId).isEqualTo(6L);
+        assertThat(((TextView) vm.getAdapterView()).getText().toString()).isEqualTo("6");
+        assertThat(mAdapter.mGetViewCount - getViewCount).isGreaterThanOrEqualTo(3);
+    }
+}
@@ -0,0 +1,86 @@
+package com.andrearichiardi.android.avabackport.widget;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+
+import android.content.Context;
+import android.os.SystemClock;
+import android.view.MotionEvent;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.TextView;
+
+@RunWith(RobolectricTestRunner.class)
+public class AdapterViewAnimatorTouchTest {
+
+    View mTouched;
+    AdapterViewAnimator mAnimator;
+
+    @Before
+    public void setUp() {
+        // A stack: every child of the window on top of the other
+        mAnimator = new AdapterViewAnimator(Robolectric.application) {
+            @Override
+            void transformViewForTransition(int fromIndex, int toIndex, View view, boolean animate) {
+            }
+        };
+        mAnimator.configureViewAnimator(3, 1);
+        mAnimator.setAdapter(new CountingTestAdapter(10) {
+            @Override
+            View newView(Context context) {
+                return new TextView(context) {
+                    @Override
+                    public boolean onTouchEvent(MotionEvent event) {
+                        mTouched = this;
+                        return true;
+                    }
+                };
+            }
+        });
+        mAnimator.seekTo(5, false);
+    }
+
+    private void layout() {
+        for (int i = 0; i < mAnimator.getChildCount(); i++) {
+            final ViewGroup frame = (ViewGroup) mAnimator.getChildAt(i);
+            frame.layout(0, 0, 100, 100);
+            frame.getChildAt(0).layout(0, 0, 100, 100);
+        }
+    }
+
+    private void tap() {
+        final long now = SystemClock.uptimeMillis();
+        final MotionEvent down = MotionEvent.obtain(now, now, MotionEvent.ACTION_DOWN, 50, 50, 0);
+        mAnimator.dispatchTouchEvent(down);
+        down.recycle();
+    }
+
+    private View getTopView() {
+        return ((ViewGroup) mAnimator.getViewAtRelativeIndex(2)).getChildAt(0);
+    }
+
+    @Test
+    public void shouldTouchTheTopChild() {
+        layout();
+
+        tap();
+
+        assertThat(mTouched).isSameAs(getTopView());
+    }
+
+    @Test
+    public void shouldTouchTheTopChildAfterFlippingBack() {
+        mAnimator.showPrevious();
+        layout();
+
+        tap();
+
+        // The new first child of the window is added last, but must not get the touch
+        assertThat(mTouched).isSameAs(getTopView());
+    }
+}
@@ -0,0 +1,79 @@
+package com.andrearichiardi.android.avabackport.widget;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+
+import android.view.View;
+import android.widget.TextView;
+
+@RunWith(RobolectricTestRunner.class)
+public class AdapterViewAnimatorWrapTest {
+
+    AdapterViewFlipper mFlipper;
+    CountingTestAdapter mAdapter;
+
+    @Before
+    public void setUp() {
+        mFlipper = new AdapterViewFlipper(Robolectric.application);
+        mAdapter = new CountingTestAdapter(5);
+        mFlipper.setAdapter(mAdapter);
+    }
+
+    @Test
+    public void shouldWrapByDefault() {
+        final View child = mFlipper.getChildAt(0);
+        assertThat(child).isInstanceOf(TransitionFrame.class);
+        assertThat(mFlipper.mViewsMap.get(0).getAdapterView()).isInstanceOf(TextView.class);
+    }
+
+    @Test
+    public void shouldReuseTheFramesLeavingTheWindow() {
+        final View frame = mFlipper.mViewsMap.get(0).view;
+        mFlipper.showNext();
+        // The first frame leaves on the next pass
+        mFlipper.showNext();
+
+        assertThat(mFlipper.mViewsMap.get(2).view).isSameAs(frame);
+    }
+
+    @Test
+    public void shouldAttachTheAdapterViewsDirectly() {
+        mFlipper.setWrapAdapterViews(false);
+
+        final View child = mFlipper.getCurrentView();
+        assertThat(child).isInstanceOf(TextView.class);
+        assertThat(child.getParent()).isSameAs(mFlipper);
+    }
+
+    @Test
+    public void shouldRecycleTheWindowWhenRewrapping() {
+        final int created = mAdapter.mCreatedCount;
+
+        mFlipper.setWrapAdapterViews(false);
+        mFlipper.setWrapAdapterViews(true);
+
+        // The same adapter view went through the scrap heap both times
+        assertThat(mAdapter.mCreatedCount).isEqualTo(created);
+        assertThat(mFlipper.getRecycledViewCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldCancelTheTransitionsOfTheRemovedViews() {
+        mFlipper.setSnapshotTransitions(true);
+        final View leaving = mFlipper.mViewsMap.get(0).view;
+        mFlipper.showNext();
+        final View entering = mFlipper.mViewsMap.get(1).view;
+
+        mFlipper.setWrapAdapterViews(false);
+
+        assertThat(mFlipper.mAnimators.isAnimating(leaving)).isFalse();
+        assertThat(mFlipper.mAnimators.isAnimating(entering)).isFalse();
+        assertThat(((TransitionFrame) entering).hasSnapshot()).isFalse();
+        assertThat(leaving.getParent()).isNull();
+    }
+}
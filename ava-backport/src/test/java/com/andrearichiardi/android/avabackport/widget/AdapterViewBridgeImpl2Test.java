@@ -0,0 +1,46 @@
+package com.andrearichiardi.android.avabackport.widget;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+
+import android.widget.AdapterView;
+import android.widget.ArrayAdapter;
+
+/**
+ * Runs the {@link AdapterViewBridge} contract against the bridge of an {@link AdapterViewFlipper},
+ * which keeps the AdapterView state in plain fields.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class AdapterViewBridgeImpl2Test extends AdapterViewBridgeTest {
+
+    @Override
+    AdapterView<?> createAdapterView(ArrayAdapter<String> adapter) {
+        AdapterViewFlipper flipper = new AdapterViewFlipper(Robolectric.application);
+        flipper.setAdapter(adapter);
+        return flipper;
+    }
+    
+    @Override
+    AdapterViewBridge createBridge(AdapterView<?> adapterView) {
+        return ((AdapterViewAnimator) adapterView).mAdapterViewRefl;
+    }
+    
+    @Test
+    public void shouldBeReflectionFree() {
+        assertThat(mArrayAdapterBridge).isInstanceOf(AdapterViewBridgeImpl2.class);
+    }
+    
+    @Test
+    public void shouldSyncToTheSameRowAfterDataChanged() {
+        mArrayAdapterBridge.setNextSelectedPosition(1);
+        mArrayAdapterBridge.setNextSelectedRowId(mTestAdapter.getItemId(1));
+        mArrayAdapterBridge.setSelectedPosition(1);
+        mArrayAdapterBridge.rememberSyncState();
+        mArrayAdapterBridge.handleDataChanged();
+        assertThat(mListView.getSelectedItemPosition()).isEqualTo(1);
+    }
+}
@@ -14,29 +14,43 @@ import com.andrearichiardi.android.avabackport.widget.AdapterViewBridgeImpl1;
 
 import android.R;
 import android.view.View;
+import android.widget.AdapterView;
 import android.widget.ArrayAdapter;
 import android.widget.ListView;
 
+/**
+ * The contract of {@link AdapterViewBridge}, run against the reflective {@link AdapterViewBridgeImpl1}.
+ * Subclasses run it against the other implementations.
+ */
 @RunWith(RobolectricTestRunner.class)
 public class AdapterViewBridgeTest {
 
     ArrayAdapter<String> mTestAdapter;
     ArrayAdapterAssert mAssert;
-    AdapterViewBridgeImpl1 mArrayAdapterBridge;
-    ListView mListView;
+    AdapterViewBridge mArrayAdapterBridge;
+    AdapterView<?> mListView;
     
     @Before
     public void setUp() throws Exception {
         mTestAdapter = new ArrayAdapter<String>(Robolectric.application,
                 R.id.title, new String[] { new String("test"), new String("test2") });
         
-        mListView = new ListView(Robolectric.application);
-        mListView.setAdapter(mTestAdapter);
+        mListView = createAdapterView(mTestAdapter);
         
-        mArrayAdapterBridge = new AdapterViewBridgeImpl1(mListView);
+        mArrayAdapterBridge = createBridge(mListView);
         
         mAssert = new ArrayAdapterAssert(mTestAdapter);
     }
+    
+    AdapterView<?> createAdapterView(ArrayAdapter<String> adapter) {
+        ListView listView = new ListView(Robolectric.application);
+        listView.setAdapter(adapter);
+        return listView;
+    }
+    
+    AdapterViewBridge createBridge(AdapterView<?> adapterView) {
+        return new AdapterViewBridgeImpl1(adapterView);
+    }
 
     @Test
     public void verifyContext() {
@@ -63,6 +77,7 @@ public class AdapterViewBridgeTest {
     public void shouldSetItemCount() {
         mArrayAdapterBridge.setItemCount(3);
         assertThat(mListView.getCount()).isEqualTo(3);
+        assertThat(mArrayAdapterBridge.getItemCount()).isEqualTo(3);
     }
     
     @Test
@@ -103,6 +118,14 @@ public class AdapterViewBridgeTest {
     public void shouldSetNextSelectedPosition() {
         mArrayAdapterBridge.setNextSelectedPosition(3);
         assertThat(mListView.getSelectedItemPosition()).isEqualTo(3);
+        assertThat(mArrayAdapterBridge.getNextSelectedPosition()).isEqualTo(3);
+    }
+    
+    @Test
+    public void shouldSetNextSelectedRowId() {
+        mArrayAdapterBridge.setNextSelectedRowId(3);
+        assertThat(mListView.getSelectedItemId()).isEqualTo(3);
+        assertThat(mArrayAdapterBridge.getNextSelectedRowId()).isEqualTo(3);
     }
     
     @Test
@@ -130,4 +153,12 @@ public class AdapterViewBridgeTest {
     public void shouldCallHandleDataChanged() {
         mArrayAdapterBridge.handleDataChanged();
     }
+    
+    @Test
+    public void shouldShareMembersBetweenBridges() {
+        AdapterViewBridgeImpl1 bridge = new AdapterViewBridgeImpl1(new ListView(Robolectric.application));
+        AdapterViewBridgeImpl1 otherBridge = new AdapterViewBridgeImpl1(new ListView(Robolectric.application));
+        assertThat(otherBridge.mDataChanged).isSameAs(bridge.mDataChanged);
+        assertThat(otherBridge.mCheckFocus).isSameAs(bridge.mCheckFocus);
+    }
 }
@@ -0,0 +1,139 @@
+package com.andrearichiardi.android.avabackport.widget;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+
+import android.view.View;
+import android.view.animation.LinearInterpolator;
+
+import com.nineoldandroids.animation.ObjectAnimator;
+
+@RunWith(RobolectricTestRunner.class)
+public class AnimatorManagerTest {
+
+    AnimatorManager mManager;
+    ObjectAnimator mTemplate;
+    View mFirst;
+    View mSecond;
+
+    @Before
+    public void setUp() {
+        mManager = new AnimatorManager();
+        mTemplate = ObjectAnimator.ofFloat(null, "alpha", 0.0f, 1.0f);
+        mTemplate.setDuration(10000);
+        mFirst = new View(Robolectric.application);
+        mSecond = new View(Robolectric.application);
+    }
+
+    @Test
+    public void shouldRunOneCloneForEachView() {
+        mManager.start(mTemplate, mFirst);
+        mManager.start(mTemplate, mSecond);
+
+        assertThat(mManager.getRunningCount()).isEqualTo(2);
+        assertThat(mManager.getCloneCount()).isEqualTo(2);
+        assertThat(mManager.isAnimating(mFirst)).isTrue();
+        assertThat(mManager.isAnimating(mSecond)).isTrue();
+        assertThat(mTemplate.isStarted()).isFalse();
+        assertThat(mTemplate.getTarget()).isNull();
+    }
+
+    @Test
+    public void shouldReplaceTheAnimatorOfAView() {
+        mManager.start(mTemplate, mFirst);
+        mManager.start(mTemplate, mFirst);
+
+        assertThat(mManager.getRunningCount()).isEqualTo(1);
+        // The cancelled clone went back to the pool and has been reused
+        assertThat(mManager.getCloneCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldReleaseCancelledAnimators() {
+        mManager.start(mTemplate, mFirst);
+        mManager.start(mTemplate, mSecond);
+        mManager.cancel(mFirst);
+
+        assertThat(mManager.getRunningCount()).isEqualTo(1);
+        assertThat(mManager.isAnimating(mFirst)).isFalse();
+        assertThat(mManager.getPoolSize()).isEqualTo(1);
+
+        mManager.start(mTemplate, mFirst);
+        assertThat(mManager.getCloneCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldEndEverything() {
+        mManager.start(mTemplate, mFirst);
+        mManager.start(mTemplate, mSecond);
+        mManager.endAll();
+
+        assertThat(mManager.isIdle()).isTrue();
+        assertThat(mManager.getPoolSize()).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldIgnoreMissingTemplates() {
+        mManager.start(null, mFirst);
+        assertThat(mManager.isIdle()).isTrue();
+        // Nothing to do on a view that is not animating
+        mManager.cancel(mSecond);
+    }
+
+    @Test
+    public void shouldDropThePoolOnTemplateChange() {
+        mManager.start(mTemplate, mFirst);
+        mManager.endAll();
+        mManager.clearPool();
+        assertThat(mManager.getPoolSize()).isEqualTo(0);
+    }
+
+    @Test
+    public void shouldNotReuseAStaleClone() {
+        mManager.start(mTemplate, mFirst);
+        mManager.endAll();
+        assertThat(mManager.getPoolSize()).isEqualTo(1);
+
+        mTemplate.setDuration(500);
+        mManager.start(mTemplate, mFirst);
+
+        // The pooled clone still lasted 10000 ms, a new one has been made
+        assertThat(mManager.getCloneCount()).isEqualTo(2);
+        assertThat(mManager.getPoolSize()).isEqualTo(0);
+        mManager.endAll();
+
+        // The new clone matches the template and is reused
+        mManager.start(mTemplate, mSecond);
+        assertThat(mManager.getCloneCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldNotReuseACloneWithAnOldInterpolator() {
+        mManager.start(mTemplate, mFirst);
+        mManager.endAll();
+
+        mTemplate.setInterpolator(new LinearInterpolator());
+        mManager.start(mTemplate, mFirst);
+
+        assertThat(mManager.getCloneCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldStartABatchTogether() {
+        mManager.beginBatch();
+        mManager.start(mTemplate, mFirst);
+        mManager.start(mTemplate, mSecond);
+        assertThat(mManager.getRunningCount()).isEqualTo(2);
+
+        mManager.endBatch();
+        assertThat(mManager.getRunningCount()).isEqualTo(2);
+        mManager.cancel(mFirst);
+        mManager.cancel(mSecond);
+        assertThat(mManager.isIdle()).isTrue();
+    }
+}
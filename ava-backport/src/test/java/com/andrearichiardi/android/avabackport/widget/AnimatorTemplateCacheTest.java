@@ -0,0 +1,59 @@
+package com.andrearichiardi.android.avabackport.widget;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+
+import com.nineoldandroids.animation.Animator;
+
+@RunWith(RobolectricTestRunner.class)
+public class AnimatorTemplateCacheTest {
+
+    @Before
+    public void setUp() {
+        AnimatorTemplateCache.clear();
+    }
+
+    @Test
+    public void shouldParseEachResourceOnce() {
+        final Animator first = AnimatorTemplateCache.loadAnimator(Robolectric.application,
+                android.R.animator.fade_in);
+        final Animator second = AnimatorTemplateCache.loadAnimator(Robolectric.application,
+                android.R.animator.fade_in);
+
+        assertThat(AnimatorTemplateCache.size()).isEqualTo(1);
+        assertThat(first).isNotNull();
+        assertThat(second).isNotSameAs(first);
+        assertThat(second.getDuration()).isEqualTo(first.getDuration());
+    }
+
+    @Test
+    public void shouldHandOutIndependentCopies() {
+        final Animator first = AnimatorTemplateCache.loadAnimator(Robolectric.application,
+                android.R.animator.fade_in);
+        final long duration = first.getDuration();
+        first.setDuration(duration + 1000);
+
+        final Animator second = AnimatorTemplateCache.loadAnimator(Robolectric.application,
+                android.R.animator.fade_in);
+        assertThat(second.getDuration()).isEqualTo(duration);
+    }
+
+    @Test
+    public void shouldShareTheDefaultAnimations() {
+        final AdapterViewFlipper first = new AdapterViewFlipper(Robolectric.application);
+        final AdapterViewFlipper second = new AdapterViewFlipper(Robolectric.application);
+
+        assertThat(first.getInAnimation()).isNotNull();
+        assertThat(first.getInAnimation()).isNotSameAs(second.getInAnimation());
+        assertThat(first.getOutAnimation()).isNotSameAs(second.getOutAnimation());
+        assertThat(first.getInAnimation().getDuration())
+                .isEqualTo(second.getInAnimation().getDuration());
+        // Parsing resources is not involved
+        assertThat(AnimatorTemplateCache.size()).isEqualTo(0);
+    }
+}
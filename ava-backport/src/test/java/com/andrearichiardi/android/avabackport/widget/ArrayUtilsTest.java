@@ -0,0 +1,14 @@
+package com.andrearichiardi.android.avabackport.widget;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+import org.junit.Test;
+
+public class ArrayUtilsTest {
+
+    @Test
+    public void shouldGrowKeepingElementsAndComponentType() {
+        final String[] grown = ArrayUtils.grow(new String[] { "a", "b" }, 4);
+        assertThat(grown).containsExactly("a", "b", null, null);
+    }
+}
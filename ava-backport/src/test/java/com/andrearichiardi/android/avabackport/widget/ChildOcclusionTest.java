@@ -0,0 +1,59 @@
+package com.andrearichiardi.android.avabackport.widget;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class ChildOcclusionTest {
+
+    ChildOcclusion mOcclusion;
+
+    @Before
+    public void setUp() throws Exception {
+        mOcclusion = new ChildOcclusion();
+    }
+
+    @Test
+    public void shouldCoverBoundsWithinAnOccluder() {
+        mOcclusion.addOccluder(0, 0, 100, 100);
+        assertThat(mOcclusion.isCovered(0, 0, 100, 100)).isTrue();
+        assertThat(mOcclusion.isCovered(10, 10, 50, 50)).isTrue();
+    }
+
+    @Test
+    public void shouldNotCoverOverflowingBounds() {
+        mOcclusion.addOccluder(0, 0, 100, 100);
+        assertThat(mOcclusion.isCovered(0, 0, 101, 100)).isFalse();
+        assertThat(mOcclusion.isCovered(-1, 0, 100, 100)).isFalse();
+    }
+
+    @Test
+    public void shouldNotCoverWithTheUnionOfOccluders() {
+        // Each half alone does not contain the whole
+        mOcclusion.addOccluder(0, 0, 50, 100);
+        mOcclusion.addOccluder(50, 0, 100, 100);
+        assertThat(mOcclusion.isCovered(0, 0, 100, 100)).isFalse();
+        assertThat(mOcclusion.isCovered(60, 0, 100, 100)).isTrue();
+    }
+
+    @Test
+    public void shouldGrowAndReset() {
+        for (int i = 0; i < 10; i++) {
+            mOcclusion.addOccluder(i, i, 100 + i, 100 + i);
+        }
+        assertThat(mOcclusion.getOccluderCount()).isEqualTo(10);
+        assertThat(mOcclusion.isCovered(9, 9, 109, 109)).isTrue();
+
+        for (int i = 0; i < 10; i++) {
+            // Views only matter by identity
+            mOcclusion.addOccluded(null);
+        }
+        assertThat(mOcclusion.getOccludedCount()).isEqualTo(10);
+
+        mOcclusion.reset();
+        assertThat(mOcclusion.getOccluderCount()).isEqualTo(0);
+        assertThat(mOcclusion.getOccludedCount()).isEqualTo(0);
+        assertThat(mOcclusion.isCovered(9, 9, 109, 109)).isFalse();
+    }
+}
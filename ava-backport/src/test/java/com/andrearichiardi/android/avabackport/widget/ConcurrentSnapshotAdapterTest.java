@@ -0,0 +1,90 @@
+package com.andrearichiardi.android.avabackport.widget;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+import java.util.Arrays;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+
+import android.database.DataSetObserver;
+import android.view.View;
+import android.view.ViewGroup;
+
+@RunWith(RobolectricTestRunner.class)
+public class ConcurrentSnapshotAdapterTest {
+
+    ConcurrentSnapshotAdapter<String> mAdapter;
+    int mChangedCount;
+
+    @Before
+    public void setUp() {
+        mAdapter = new ConcurrentSnapshotAdapter<String>() {
+            @Override
+            public View getView(int position, View convertView, ViewGroup parent) {
+                return null;
+            }
+        };
+        mAdapter.registerDataSetObserver(new DataSetObserver() {
+            @Override
+            public void onChanged() {
+                mChangedCount++;
+            }
+        });
+    }
+
+    @Test
+    public void shouldPublishManyWritesOnce() {
+        Robolectric.pauseMainLooper();
+        mAdapter.add("a");
+        mAdapter.addAll(Arrays.asList("b", "c"));
+        mAdapter.set(0, "z");
+        assertThat(mAdapter.getCount()).isEqualTo(0);
+
+        Robolectric.runUiThreadTasksIncludingDelayedTasks();
+        assertThat(mChangedCount).isEqualTo(1);
+        assertThat(mAdapter.getPublishCount()).isEqualTo(1);
+        assertThat(mAdapter.getSnapshot()).containsExactly("z", "b", "c");
+    }
+
+    @Test
+    public void shouldApplyWritesInOrder() {
+        Robolectric.pauseMainLooper();
+        mAdapter.add("a");
+        mAdapter.clear();
+        mAdapter.replaceAll(Arrays.asList("x", "y"));
+        mAdapter.set(5, "dropped");
+        mAdapter.add("w");
+
+        Robolectric.runUiThreadTasksIncludingDelayedTasks();
+        assertThat(mAdapter.getSnapshot()).containsExactly("x", "y", "w");
+        assertThat(mAdapter.getItem(2)).isEqualTo("w");
+    }
+
+    @Test
+    public void shouldAcceptWritesFromOtherThreads() throws Exception {
+        Robolectric.pauseMainLooper();
+        Thread[] producers = new Thread[4];
+        for (int i = 0; i < producers.length; i++) {
+            producers[i] = new Thread() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < 100; j++) {
+                        mAdapter.add("item");
+                    }
+                }
+            };
+            producers[i].start();
+        }
+        for (Thread producer : producers) {
+            producer.join();
+        }
+
+        Robolectric.runUiThreadTasksIncludingDelayedTasks();
+        assertThat(mAdapter.getCount()).isEqualTo(400);
+        assertThat(mChangedCount).isEqualTo(1);
+    }
+}
@@ -0,0 +1,68 @@
+package com.andrearichiardi.android.avabackport.widget;
+
+import android.content.Context;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.BaseAdapter;
+import android.widget.TextView;
+
+/**
+ * An adapter of <code>count</code> items whose ids are their positions, counting the views it
+ * binds and creates. Its views are {@link TextView}s showing the position of their item, unless
+ * binding is turned off.
+ */
+class CountingTestAdapter extends BaseAdapter {
+
+    private final int mCount;
+    private final boolean mBind;
+
+    int mGetViewCount;
+    int mCreatedCount;
+    int mLastPosition = -1;
+
+    CountingTestAdapter(int count) {
+        this(count, true);
+    }
+
+    CountingTestAdapter(int count, boolean bind) {
+        mCount = count;
+        mBind = bind;
+    }
+
+    @Override
+    public int getCount() {
+        return mCount;
+    }
+
+    @Override
+    public Object getItem(int position) {
+        return position;
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return position;
+    }
+
+    @Override
+    public View getView(int position, View convertView, ViewGroup parent) {
+        mGetViewCount++;
+        mLastPosition = position;
+        View view = convertView;
+        if (view == null) {
+            view = newView(parent.getContext());
+            mCreatedCount++;
+        }
+        if (mBind && view instanceof TextView) {
+            ((TextView) view).setText(String.valueOf(position));
+        }
+        return view;
+    }
+
+    /**
+     * @return A new item view, a {@link TextView} by default.
+     */
+    View newView(Context context) {
+        return new TextView(context);
+    }
+}
@@ -0,0 +1,92 @@
+package com.andrearichiardi.android.avabackport.widget;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import android.view.View;
+import android.view.ViewGroup;
+
+import com.andrearichiardi.android.avabackport.widget.DiffingAdapter.DiffResult;
+
+@RunWith(RobolectricTestRunner.class)
+public class DiffingAdapterTest {
+
+    /**
+     * Items are strings like "3:c", the key is the number before the colon.
+     */
+    static class KeyedAdapter extends DiffingAdapter<String> {
+
+        KeyedAdapter() {
+            super(new Executor() {
+                @Override
+                public void execute(Runnable command) {
+                    command.run();
+                }
+            });
+        }
+
+        @Override
+        protected long getItemKey(String item) {
+            return Long.parseLong(item.substring(0, item.indexOf(':')));
+        }
+
+        @Override
+        public View getView(int position, View convertView, ViewGroup parent) {
+            return null;
+        }
+    }
+
+    KeyedAdapter mAdapter;
+
+    @Before
+    public void setUp() {
+        mAdapter = new KeyedAdapter();
+    }
+
+    private DiffResult diff(List<String> oldItems, List<String> newItems) {
+        return mAdapter.computeDiff(oldItems, newItems);
+    }
+
+    @Test
+    public void shouldFindNoUpdatesBetweenEqualLists() {
+        DiffResult result = diff(Arrays.asList("1:a", "2:b"), Arrays.asList("1:a", "2:b"));
+        assertThat(result.hasUpdates()).isFalse();
+        assertThat(result.getNewPosition(1)).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldFindInsertionsAndRemovals() {
+        DiffResult result = diff(Arrays.asList("1:a", "2:b", "3:c"), Arrays.asList("0:z", "1:a", "3:c"));
+        assertThat(result.getInsertCount()).isEqualTo(1);
+        assertThat(result.getRemoveCount()).isEqualTo(1);
+        assertThat(result.getMoveCount()).isEqualTo(0);
+        assertThat(result.getOldPosition(0)).isEqualTo(-1);
+        assertThat(result.getNewPosition(1)).isEqualTo(-1);
+        assertThat(result.getNewPosition(2)).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldFindMovesAndChanges() {
+        DiffResult result = diff(Arrays.asList("1:a", "2:b", "3:c", "4:d"), Arrays.asList("4:d", "1:a", "2:x", "3:c"));
+        assertThat(result.getMoveCount()).isEqualTo(1);
+        assertThat(result.getChangeCount()).isEqualTo(1);
+        assertThat(result.isChanged(2)).isTrue();
+        assertThat(result.isChanged(0)).isFalse();
+    }
+
+    @Test
+    public void shouldPublishTheLatestItems() {
+        mAdapter.setItems(Arrays.asList("1:a", "2:b"));
+        assertThat(mAdapter.getCount()).isEqualTo(2);
+        assertThat(mAdapter.getItemId(1)).isEqualTo(2L);
+        assertThat(mAdapter.hasStableIds()).isTrue();
+    }
+}
@@ -0,0 +1,61 @@
+package com.andrearichiardi.android.avabackport.widget;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class LongIntMapTest {
+
+    LongIntMap mMap;
+    
+    @Before
+    public void setUp() throws Exception {
+        mMap = new LongIntMap(4);
+    }
+
+    @Test
+    public void shouldGetPutValues() {
+        mMap.put(42L, 1);
+        mMap.put(-7L, 2);
+        assertThat(mMap.get(42L, -1)).isEqualTo(1);
+        assertThat(mMap.get(-7L, -1)).isEqualTo(2);
+        assertThat(mMap.size()).isEqualTo(2);
+    }
+    
+    @Test
+    public void shouldReturnDefaultForMissingKey() {
+        mMap.put(1L, 1);
+        assertThat(mMap.get(2L, -1)).isEqualTo(-1);
+        assertThat(mMap.containsKey(2L)).isFalse();
+    }
+    
+    @Test
+    public void shouldReplaceValue() {
+        mMap.put(1L, 1);
+        mMap.put(1L, 3);
+        assertThat(mMap.get(1L, -1)).isEqualTo(3);
+        assertThat(mMap.size()).isEqualTo(1);
+    }
+    
+    @Test
+    public void shouldClear() {
+        mMap.put(1L, 1);
+        mMap.clear();
+        assertThat(mMap.size()).isEqualTo(0);
+        assertThat(mMap.containsKey(1L)).isFalse();
+        mMap.put(1L, 2);
+        assertThat(mMap.get(1L, -1)).isEqualTo(2);
+    }
+    
+    @Test
+    public void shouldGrow() {
+        for (int i = 0; i < 1000; i++) {
+            mMap.put(i * 0x100000000L + i, i);
+        }
+        assertThat(mMap.size()).isEqualTo(1000);
+        for (int i = 0; i < 1000; i++) {
+            assertThat(mMap.get(i * 0x100000000L + i, -1)).isEqualTo(i);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.andrearichiardi.android.avabackport.widget;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.BaseAdapter;
+import android.widget.TextView;
+
+@RunWith(RobolectricTestRunner.class)
+public class PrefetchingAdapterTest {
+
+    static class RecordingAdapter extends BaseAdapter implements PrefetchingAdapter {
+        final List<List<Integer>> mCalls = new ArrayList<List<Integer>>();
+        long mLastInterval;
+
+        @Override
+        public void onPrefetch(int[] positions, int count, long flipIntervalMillis) {
+            final List<Integer> call = new ArrayList<Integer>();
+            for (int i = 0; i < count; i++) {
+                call.add(positions[i]);
+            }
+            mCalls.add(call);
+            mLastInterval = flipIntervalMillis;
+        }
+
+        List<Integer> lastCall() {
+            return mCalls.get(mCalls.size() - 1);
+        }
+
+        @Override
+        public int getCount() {
+            return 5;
+        }
+
+        @Override
+        public Object getItem(int position) {
+            return position;
+        }
+
+        @Override
+        public long getItemId(int position) {
+            return position;
+        }
+
+        @Override
+        public View getView(int position, View convertView, ViewGroup parent) {
+            return convertView != null ? convertView : new TextView(parent.getContext());
+        }
+    }
+
+    AdapterViewFlipper mFlipper;
+    RecordingAdapter mAdapter;
+
+    @Before
+    public void setUp() {
+        mFlipper = new AdapterViewFlipper(Robolectric.application);
+        mAdapter = new RecordingAdapter();
+        mFlipper.setAdapter(mAdapter);
+    }
+
+    @Test
+    public void shouldGiveTheUpcomingPositions() {
+        assertThat(mAdapter.lastCall()).containsExactly(1, 2, 3);
+        assertThat(mAdapter.mLastInterval).isEqualTo(-1L);
+    }
+
+    @Test
+    public void shouldWrapAroundWhenLooping() {
+        mFlipper.setDisplayedChild(3);
+        assertThat(mAdapter.lastCall()).containsExactly(4, 0, 1);
+    }
+
+    @Test
+    public void shouldFollowTheFlipDirection() {
+        mFlipper.showPrevious();
+        assertThat(mFlipper.getDisplayedChild()).isEqualTo(4);
+        assertThat(mAdapter.lastCall()).containsExactly(3, 2, 1);
+    }
+
+    @Test
+    public void shouldNotRepeatItself() {
+        final int calls = mAdapter.mCalls.size();
+        mFlipper.setDisplayedChild(0);
+        assertThat(mAdapter.mCalls).hasSize(calls);
+    }
+
+    @Test
+    public void shouldGiveTheFlipInterval() {
+        mFlipper.setFlipInterval(1000);
+        mFlipper.startFlipping();
+        mFlipper.showNext();
+        assertThat(mAdapter.mLastInterval).isEqualTo(1000L);
+    }
+
+    @Test
+    public void shouldNotCallTheAdapterWithoutDistance() {
+        mFlipper.setDataPrefetchDistance(0);
+        final int calls = mAdapter.mCalls.size();
+        mFlipper.showNext();
+        assertThat(mAdapter.mCalls).hasSize(calls);
+    }
+}
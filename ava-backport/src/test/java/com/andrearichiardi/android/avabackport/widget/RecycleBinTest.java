@@ -0,0 +1,74 @@
+package com.andrearichiardi.android.avabackport.widget;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+
+import android.view.View;
+import android.widget.TextView;
+
+@RunWith(RobolectricTestRunner.class)
+public class RecycleBinTest {
+
+    RecycleBin mBin;
+
+    @Before
+    public void setUp() {
+        mBin = new RecycleBin();
+        mBin.setViewTypeCount(2);
+    }
+
+    @Test
+    public void shouldKeepScrapViewsPerViewType() {
+        final View first = new TextView(Robolectric.application);
+        final View second = new TextView(Robolectric.application);
+        mBin.addScrapView(first, 0);
+        mBin.addScrapView(second, 1);
+
+        assertThat(mBin.getScrapView(1)).isSameAs(second);
+        assertThat(mBin.getScrapView(1)).isNull();
+        assertThat(mBin.getScrapView(0)).isSameAs(first);
+    }
+
+    @Test
+    public void shouldIgnoreUnknownViewTypes() {
+        mBin.addScrapView(new TextView(Robolectric.application), 2);
+        mBin.addScrapView(new TextView(Robolectric.application), -1);
+
+        assertThat(mBin.getScrapView(2)).isNull();
+        assertThat(mBin.getScrapView(-1)).isNull();
+    }
+
+    @Test
+    public void shouldBoundTheScrapHeap() {
+        mBin.setMaxScrap(1);
+        mBin.addScrapView(new TextView(Robolectric.application), 0);
+        mBin.addScrapView(new TextView(Robolectric.application), 0);
+
+        assertThat(mBin.getScrapView(0)).isNotNull();
+        assertThat(mBin.getScrapView(0)).isNull();
+    }
+
+    @Test
+    public void shouldCountReusedAndCreatedViews() {
+        final View scrap = new TextView(Robolectric.application);
+        mBin.onViewObtained(scrap, scrap, 0);
+        mBin.onViewObtained(null, new TextView(Robolectric.application), 0);
+
+        assertThat(mBin.getReusedCount()).isEqualTo(1);
+        assertThat(mBin.getCreatedCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldKeepTheScrapViewTheAdapterDidNotUse() {
+        final View scrap = new TextView(Robolectric.application);
+        mBin.onViewObtained(scrap, new TextView(Robolectric.application), 1);
+
+        assertThat(mBin.getCreatedCount()).isEqualTo(1);
+        assertThat(mBin.getScrapView(1)).isSameAs(scrap);
+    }
+}
@@ -0,0 +1,95 @@
+package com.andrearichiardi.android.avabackport.widget;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+
+import android.widget.FrameLayout;
+import android.widget.TextView;
+
+@RunWith(RobolectricTestRunner.class)
+public class SharedViewPoolTest {
+
+    SharedViewPool mPool;
+
+    @Before
+    public void setUp() {
+        mPool = new SharedViewPool(3);
+    }
+
+    @Test
+    public void shouldReuseTheViewsOfAnotherAnimator() {
+        final AdapterViewFlipper first = new AdapterViewFlipper(Robolectric.application);
+        final AdapterViewFlipper second = new AdapterViewFlipper(Robolectric.application);
+        first.setSharedViewPool(mPool);
+        second.setSharedViewPool(mPool);
+
+        first.setAdapter(new CountingTestAdapter(5));
+        first.showNext();
+        // The previous view leaves on the next pass
+        first.showNext();
+        assertThat(mPool.getSize()).isGreaterThan(0);
+
+        final CountingTestAdapter adapter = new CountingTestAdapter(5);
+        second.setAdapter(adapter);
+
+        assertThat(adapter.mCreatedCount).isEqualTo(0);
+        assertThat(second.getRecycledViewCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldNotKeepMoreThanTheMaxSize() {
+        for (int i = 0; i < 5; i++) {
+            mPool.addScrapView(new TextView(Robolectric.application), 0);
+        }
+        assertThat(mPool.getSize()).isEqualTo(3);
+    }
+
+    @Test
+    public void shouldTrimWhenTheMaxSizeShrinks() {
+        mPool.addScrapView(new TextView(Robolectric.application), 0);
+        mPool.addScrapView(new TextView(Robolectric.application), 1);
+        mPool.addScrapFrame(new FrameLayout(Robolectric.application));
+
+        mPool.setMaxSize(1);
+
+        assertThat(mPool.getSize()).isEqualTo(1);
+        // Frames go first
+        assertThat(mPool.getScrapFrame()).isNull();
+    }
+
+    @Test
+    public void shouldOnlyCountAttachedAnimators() {
+        final AdapterViewFlipper flipper = new AdapterViewFlipper(Robolectric.application);
+        flipper.setSharedViewPool(mPool);
+        assertThat(mPool.getRegisteredCount()).isEqualTo(0);
+
+        flipper.onAttachedToWindow();
+        assertThat(mPool.getRegisteredCount()).isEqualTo(1);
+
+        mPool.addScrapView(new TextView(Robolectric.application), 0);
+        flipper.onDetachedFromWindow();
+        // Released with its last animator
+        assertThat(mPool.getRegisteredCount()).isEqualTo(0);
+        assertThat(mPool.getSize()).isEqualTo(0);
+    }
+
+    @Test
+    public void shouldMoveTheRegistrationToTheNewPool() {
+        final AdapterViewFlipper flipper = new AdapterViewFlipper(Robolectric.application);
+        flipper.setSharedViewPool(mPool);
+        flipper.onAttachedToWindow();
+
+        final SharedViewPool other = new SharedViewPool();
+        flipper.setSharedViewPool(other);
+
+        assertThat(mPool.getRegisteredCount()).isEqualTo(0);
+        // Not attached to a real window, the animator only registers when attached
+        flipper.onAttachedToWindow();
+        assertThat(other.getRegisteredCount()).isEqualTo(1);
+    }
+}
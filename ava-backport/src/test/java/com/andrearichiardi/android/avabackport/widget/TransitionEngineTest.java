@@ -0,0 +1,113 @@
+package com.andrearichiardi.android.avabackport.widget;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.fest.assertions.api.Assertions.offset;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+
+import android.view.View;
+import android.view.animation.AccelerateDecelerateInterpolator;
+import android.view.animation.LinearInterpolator;
+import android.view.animation.Transformation;
+
+@RunWith(RobolectricTestRunner.class)
+public class TransitionEngineTest {
+
+    TransitionEngine mEngine;
+    Transformation mTransformation;
+    View mView;
+
+    @Before
+    public void setUp() {
+        mEngine = new TransitionEngine();
+        mTransformation = new Transformation();
+        mView = new View(Robolectric.application);
+    }
+
+    @Test
+    public void shouldFollowTheInterpolator() {
+        final AccelerateDecelerateInterpolator interpolator = new AccelerateDecelerateInterpolator();
+        final FrameTransition transition = new FrameTransition(100, interpolator);
+        for (int i = 0; i <= 100; i++) {
+            final float fraction = i / 100.0f;
+            assertThat(transition.getInterpolation(fraction))
+                    .isEqualTo(interpolator.getInterpolation(fraction), offset(0.001f));
+        }
+    }
+
+    @Test
+    public void shouldGrowBeyondItsInitialCapacity() {
+        final View[] views = new View[9];
+        for (int i = 0; i < views.length; i++) {
+            views[i] = new View(Robolectric.application);
+            mEngine.start(FrameTransition.fadeIn(100), views[i]);
+        }
+        for (int i = 0; i < views.length; i++) {
+            assertThat(mEngine.hasTransition(views[i])).isTrue();
+        }
+        assertThat(mEngine.getRunningCount(0)).isEqualTo(views.length);
+    }
+
+    @Test
+    public void shouldStartOnTheFirstFrame() {
+        mEngine.start(new FrameTransition(100, new LinearInterpolator())
+                .animate(FrameTransition.ALPHA, 0.0f, 1.0f), mView);
+
+        assertThat(mEngine.getTransformation(mView, 1000, mTransformation)).isTrue();
+        assertThat(mTransformation.getAlpha()).isEqualTo(0.0f, offset(0.001f));
+        assertThat(mEngine.onFrame(1000)).isTrue();
+
+        mEngine.getTransformation(mView, 1050, mTransformation);
+        assertThat(mTransformation.getAlpha()).isEqualTo(0.5f, offset(0.001f));
+    }
+
+    @Test
+    public void shouldForgetTransitionsEndingAtTheIdentity() {
+        mEngine.start(FrameTransition.fadeIn(100), mView);
+        mEngine.getTransformation(mView, 1000, mTransformation);
+
+        // One last frame to draw the view untransformed
+        assertThat(mEngine.onFrame(1100)).isTrue();
+        assertThat(mEngine.hasTransition(mView)).isFalse();
+        assertThat(mEngine.onFrame(1116)).isFalse();
+        assertThat(mEngine.getTransformation(mView, 1116, mTransformation)).isFalse();
+    }
+
+    @Test
+    public void shouldHoldTheEndOfOutTransitions() {
+        mEngine.start(FrameTransition.fadeOut(100), mView);
+        mEngine.getTransformation(mView, 1000, mTransformation);
+
+        assertThat(mEngine.onFrame(1200)).isFalse();
+        assertThat(mEngine.getRunningCount(1200)).isEqualTo(0);
+        assertThat(mEngine.getTransformation(mView, 1200, mTransformation)).isTrue();
+        assertThat(mTransformation.getAlpha()).isEqualTo(0.0f);
+
+        assertThat(mEngine.cancel(mView)).isTrue();
+        assertThat(mEngine.hasTransition(mView)).isFalse();
+    }
+
+    @Test
+    public void shouldReplaceTheTransitionOfAView() {
+        mEngine.start(FrameTransition.fadeOut(100), mView);
+        mEngine.start(FrameTransition.fadeIn(100), mView);
+        assertThat(mEngine.getRunningCount(0)).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldFinishEverything() {
+        final View other = new View(Robolectric.application);
+        mEngine.start(FrameTransition.fadeIn(100), mView);
+        mEngine.start(FrameTransition.fadeOut(100), other);
+        mEngine.finishAll();
+
+        assertThat(mEngine.hasTransition(mView)).isFalse();
+        assertThat(mEngine.getRunningCount(0)).isEqualTo(0);
+        mEngine.getTransformation(other, 0, mTransformation);
+        assertThat(mTransformation.getAlpha()).isEqualTo(0.0f);
+    }
+}
@@ -0,0 +1,145 @@
+package com.andrearichiardi.android.avabackport.widget;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class WindowStoreTest {
+
+    WindowStore<String> mStore;
+
+    @Before
+    public void setUp() {
+        mStore = new WindowStore<String>();
+    }
+
+    private void fill(int startKey, int span, int modulus) {
+        mStore.moveWindow(startKey, span, modulus);
+        for (int i = 0; i < span; i++) {
+            final int key = (startKey + i) % modulus;
+            mStore.put(key, "v" + key);
+        }
+    }
+
+    @Test
+    public void shouldKeepEntriesWhenMovingForward() {
+        fill(0, 3, 10);
+        mStore.moveWindow(1, 3, 10);
+        assertThat(mStore.getRetiredCount()).isEqualTo(1);
+        assertThat(mStore.getRetired(0)).isEqualTo("v0");
+        assertThat(mStore.get(1)).isEqualTo("v1");
+        assertThat(mStore.get(2)).isEqualTo("v2");
+        assertThat(mStore.get(3)).isNull();
+        assertThat(mStore.get(0)).isNull();
+    }
+
+    @Test
+    public void shouldKeepEntriesWhenWrappingBackward() {
+        fill(0, 3, 10);
+        mStore.moveWindow(9, 3, 10);
+        assertThat(mStore.getRetiredCount()).isEqualTo(1);
+        assertThat(mStore.getRetired(0)).isEqualTo("v2");
+        assertThat(mStore.getAt(1)).isEqualTo("v0");
+        assertThat(mStore.get(1)).isEqualTo("v1");
+        assertThat(mStore.get(9)).isNull();
+    }
+
+    @Test
+    public void shouldKeepEntriesWhenWindowsOverlapAtBothEnds() {
+        fill(0, 4, 5);
+        mStore.moveWindow(2, 4, 5);
+        assertThat(mStore.getRetiredCount()).isEqualTo(1);
+        assertThat(mStore.getRetired(0)).isEqualTo("v1");
+        assertThat(mStore.get(0)).isEqualTo("v0");
+        assertThat(mStore.get(2)).isEqualTo("v2");
+        assertThat(mStore.get(3)).isEqualTo("v3");
+    }
+
+    @Test
+    public void shouldGrowBeyondTheCapacity() {
+        fill(0, 3, 100);
+        fill(1, 40, 100);
+        assertThat(mStore.getRetiredCount()).isEqualTo(1);
+        for (int key = 1; key <= 40; key++) {
+            assertThat(mStore.get(key)).isEqualTo("v" + key);
+        }
+    }
+
+    @Test
+    public void shouldClearEverything() {
+        fill(0, 3, 10);
+        mStore.moveWindow(5, 3, 10);
+        mStore.clear();
+        assertThat(mStore.getRetiredCount()).isEqualTo(0);
+        assertThat(mStore.getSpan()).isEqualTo(0);
+        assertThat(mStore.get(5)).isNull();
+    }
+
+    @Test
+    public void shouldBehaveLikeAMap() {
+        final Random random = new Random(42);
+        final Map<Integer, String> model = new HashMap<Integer, String>();
+        int modulus = 7;
+        for (int step = 0; step < 5000; step++) {
+            if (random.nextInt(50) == 0) {
+                modulus = 1 + random.nextInt(20);
+            }
+            final int span = 1 + random.nextInt(Math.min(modulus, 9));
+            final int startKey = random.nextInt(modulus);
+
+            final Set<Integer> window = new HashSet<Integer>();
+            for (int i = 0; i < span; i++) {
+                window.add((startKey + i) % modulus);
+            }
+            final Set<String> expectedRetired = new HashSet<String>();
+            for (Map.Entry<Integer, String> entry : model.entrySet()) {
+                if (!window.contains(entry.getKey()) || entry.getKey() >= modulus) {
+                    expectedRetired.add(entry.getValue());
+                }
+            }
+            model.keySet().retainAll(window);
+
+            mStore.moveWindow(startKey, span, modulus);
+            final Set<String> retired = new HashSet<String>();
+            for (int i = 0; i < mStore.getRetiredCount(); i++) {
+                retired.add(mStore.getRetired(i));
+            }
+            assertThat(retired).isEqualTo(expectedRetired);
+            mStore.clearRetired();
+
+            for (int key = 0; key < modulus; key++) {
+                assertThat(mStore.get(key)).isEqualTo(model.get(key));
+            }
+            for (Integer key : window) {
+                if (random.nextBoolean() && !model.containsKey(key)) {
+                    final String value = "v" + step + ":" + key;
+                    model.put(key, value);
+                    mStore.put(key, value);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void shouldRelocateAcrossTheEndOfHugeModuli() {
+        final int modulus = Integer.MAX_VALUE;
+        mStore.moveWindow(modulus - 1, 3, modulus);
+        mStore.put(modulus - 1, "a");
+        mStore.put(0, "b");
+        mStore.put(1, "c");
+
+        // Growing the window takes the slow path
+        mStore.moveWindow(0, 6, modulus);
+        assertThat(mStore.get(0)).isEqualTo("b");
+        assertThat(mStore.get(1)).isEqualTo("c");
+        assertThat(mStore.getRetiredCount()).isEqualTo(1);
+        assertThat(mStore.getRetired(0)).isEqualTo("a");
+    }
+}